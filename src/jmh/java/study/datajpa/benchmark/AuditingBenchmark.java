@@ -0,0 +1,50 @@
+package study.datajpa.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+/**
+ * 감사(auditing) 컬럼이 붙은 엔티티 대량 저장. 한 트랜잭션에서 saveAll 후 flush, 롤백한다.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class AuditingBenchmark extends SpringBenchmarkState {
+
+    private static final int MEMBERS = 10_000;
+
+    private MemberRepository memberRepository;
+
+
+    @Override
+    protected void seed() {
+    }
+
+
+    @Override
+    protected void prepare() {
+        memberRepository = bean(MemberRepository.class);
+    }
+
+
+    @Benchmark
+    public List<Member> saveAll() {
+        return inRollbackTransaction(status -> {
+            List<Member> members = memberRepository.saveAll(
+                    IntStream.range(0, MEMBERS).mapToObj(i -> new Member("member" + i, i % 100)).toList());
+            memberRepository.flush();
+            em.clear();
+
+            return members;
+        });
+    }
+}
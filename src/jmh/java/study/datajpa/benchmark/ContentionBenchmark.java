@@ -0,0 +1,73 @@
+package study.datajpa.benchmark;
+
+import java.util.concurrent.ThreadLocalRandom;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.OptimisticRetryExecutor;
+
+/**
+ * 같은 회원 row 를 여러 스레드가 동시에 고칠 때 락 방식 비교. hotRows 개 회원 중 하나를 골라 나이를 1 올린다.
+ * <ul>
+ *     <li>pessimistic : PESSIMISTIC_WRITE 로 읽고 수정. 충돌하면 락을 기다린다</li>
+ *     <li>optimistic : @Version 으로 커밋 때 검사, 충돌하면 OptimisticRetryExecutor 가 쉬었다가 재시도</li>
+ * </ul>
+ * 재시도 횟수는 optimistic.retry 메트릭으로 본다. hotRows 가 클수록 충돌이 드물다.
+ */
+@State(Scope.Benchmark)
+@Threads(8)
+public class ContentionBenchmark extends SpringBenchmarkState {
+
+    @Param({"1", "64"})
+    public int hotRows;
+
+    @Param({"pessimistic", "optimistic"})
+    public String strategy;
+
+    private MemberRepository memberRepository;
+    private OptimisticRetryExecutor optimisticRetryExecutor;
+
+
+    @Override
+    protected String[] properties() {
+        // 재시도를 다 써버리지 않게 넉넉히
+        return new String[] {"spring.datasource.url=jdbc:h2:mem:contention;DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=10000",
+                "decorator.datasource.enabled=false", "datajpa.optimistic-retry.max-attempts=100",
+                "datajpa.optimistic-retry.initial-backoff=1ms", "datajpa.optimistic-retry.max-backoff=20ms"};
+    }
+
+
+    @Override
+    protected void seed() {
+        insertMembers(1, hotRows);
+    }
+
+
+    @Override
+    protected void prepare() {
+        memberRepository = bean(MemberRepository.class);
+        optimisticRetryExecutor = bean(OptimisticRetryExecutor.class);
+    }
+
+
+    @Benchmark
+    public void agePlus() {
+        long id = ThreadLocalRandom.current().nextInt(hotRows) + 1;
+
+        if(strategy.equals("pessimistic")) {
+            inTransaction(status -> agePlus(memberRepository.findPessimisticById(id).orElseThrow()));
+        } else {
+            optimisticRetryExecutor.execute(() -> agePlus(memberRepository.findById(id).orElseThrow()));
+        }
+    }
+
+
+    private static Member agePlus(Member member) {
+        member.setAge(member.getAge() + 1);
+        return member;
+    }
+}
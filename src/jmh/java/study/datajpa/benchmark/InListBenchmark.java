@@ -0,0 +1,70 @@
+package study.datajpa.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+/**
+ * findByNames 의 in 절 처리 방식 비교. strategy 마다 컨텍스트를 따로 띄운다.
+ * <ul>
+ *     <li>single : 이름 전부를 in 절 하나에 (나누지 않음)</li>
+ *     <li>split : 512 개씩 나눠서 (기본 설정)</li>
+ *     <li>temp-table : 임시 테이블에 넣고 조인</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+public class InListBenchmark extends SpringBenchmarkState {
+
+    private static final int MEMBERS = 100_000;
+
+    @Param({"10", "1000", "50000"})
+    public int names;
+
+    @Param({"single", "split", "temp-table"})
+    public String strategy;
+
+    private MemberRepository memberRepository;
+    private List<String> usernames;
+
+
+    @Override
+    protected String[] properties() {
+        List<String> properties = new ArrayList<>(List.of(super.properties()));
+
+        switch(strategy) {
+            case "single" -> properties.add("datajpa.in-list.max-size=" + Integer.MAX_VALUE);
+            case "temp-table" -> properties.add("datajpa.in-list.temp-table-threshold=1");
+            default -> {
+            }
+        }
+
+        return properties.toArray(String[]::new);
+    }
+
+
+    @Override
+    protected void seed() {
+        insertMembers(100, MEMBERS);
+    }
+
+
+    @Override
+    protected void prepare() {
+        memberRepository = bean(MemberRepository.class);
+        // 절반은 있는 회원, 절반은 없는 이름
+        usernames = IntStream.range(0, names)
+                .mapToObj(i -> i % 2 == 0 ? "member" + (i * 7 % MEMBERS + 1) : "unknown" + i).toList();
+    }
+
+
+    @Benchmark
+    public List<Member> findByNames() {
+        return inTransaction(status -> memberRepository.findByNames(usernames));
+    }
+}
@@ -0,0 +1,92 @@
+package study.datajpa.benchmark;
+
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.UsernameOnly;
+
+/**
+ * MemberRepository 주요 조회 경로 기준선.
+ */
+@State(Scope.Benchmark)
+public class MemberRepositoryBenchmark extends SpringBenchmarkState {
+
+    private static final int MEMBER_COUNT = 10_000;
+
+    private MemberRepository memberRepository;
+
+
+    @Override
+    protected void seed() {
+        insertMembers(100, MEMBER_COUNT);
+    }
+
+
+    @Override
+    protected void prepare() {
+        memberRepository = bean(MemberRepository.class);
+    }
+
+
+    @Benchmark
+    public List<Member> findByUsernameDerived() {
+        return inTransaction(status -> memberRepository.findByUsername("member5000"));
+    }
+
+
+    @Benchmark
+    public List<Member> findByUsernameNamedQuery() {
+        return inTransaction(status -> em.createNamedQuery("findByUsername", Member.class)
+                .setParameter("username", "member5000").getResultList());
+    }
+
+
+    @Benchmark
+    public List<MemberDto> findMemberDto() {
+        return inTransaction(status -> memberRepository.findMemberDto());
+    }
+
+
+    @Benchmark
+    public List<UsernameOnly> findProjectionByUsername() {
+        return inTransaction(status -> memberRepository.findProjectionByUsername("member5000"));
+    }
+
+
+    @Benchmark
+    public List<Member> findAllEntities() {
+        return inTransaction(status -> memberRepository.findAll());
+    }
+
+
+    @Benchmark
+    public List<Member> findMemberFetchJoin() {
+        return inTransaction(status -> memberRepository.findMemberFetchJoin());
+    }
+
+
+    @Benchmark
+    public List<Member> findEntityGraph() {
+        return inTransaction(status -> memberRepository.findEntityGraph());
+    }
+
+
+    @Benchmark
+    public Page<Member> findByAgePaged() {
+        return inTransaction(status -> memberRepository.findByAge(10,
+                PageRequest.of(1, 20, Sort.by(Sort.Direction.DESC, "username"))));
+    }
+
+
+    @Benchmark
+    public int bulkAgePlus() {
+        return inRollbackTransaction(status -> memberRepository.bulkAgePlus(50));
+    }
+}
@@ -0,0 +1,66 @@
+package study.datajpa.benchmark;
+
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Sort;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.CountMode;
+import study.datajpa.repository.MemberCursor;
+import study.datajpa.repository.MemberRepository;
+
+/**
+ * offset 페이징 vs keyset(seek) 페이징. 페이지가 깊어질수록 offset 은 느려지고 seek 는 일정해야 한다.
+ */
+@State(Scope.Benchmark)
+public class PaginationBenchmark extends SpringBenchmarkState {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"1", "1000", "10000"})
+    public int page;
+
+    private MemberRepository memberRepository;
+    private String cursor;
+
+
+    @Override
+    protected void seed() {
+        insertMembers(100, PAGE_SIZE * 10_000 + PAGE_SIZE);
+    }
+
+
+    @Override
+    protected void prepare() {
+        memberRepository = bean(MemberRepository.class);
+
+        // page 번째 페이지 직전의 마지막 행을 cursor 로 잡아둔다
+        if(page > 1) {
+            Member last = inTransaction(status -> memberRepository.findAll(
+                    PageRequest.of(page - 2, PAGE_SIZE, Sort.by("username", "id")), CountMode.NONE)
+                    .getContent().get(PAGE_SIZE - 1));
+            cursor = MemberCursor.encode(last);
+        }
+    }
+
+
+    @Benchmark
+    public List<Member> offset() {
+        return inTransaction(status -> memberRepository.findAll(
+                PageRequest.of(page - 1, PAGE_SIZE, Sort.by("username", "id")), CountMode.NONE).getContent());
+    }
+
+
+    @Benchmark
+    public List<Member> seek() {
+        ScrollPosition position = MemberCursor.decode(cursor);
+
+        return inTransaction(status -> memberRepository.findAllByOrderByUsernameAscIdAsc(position,
+                Limit.of(PAGE_SIZE)).getContent());
+    }
+}
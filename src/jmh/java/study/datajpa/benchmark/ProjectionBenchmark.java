@@ -0,0 +1,79 @@
+package study.datajpa.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import study.datajpa.dto.MemberColumns;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberRow;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.UsernameOnly;
+
+/**
+ * 회원 10,000 명 조회 결과를 담는 방식별 비교. 시간보다 할당량(-prof gc 의 gc.alloc.rate.norm)을 본다.
+ * <ul>
+ *     <li>constructorExpression : findMemberDto (JPQL new MemberDto(...))</li>
+ *     <li>interfaceProjection : findProjectionByUsername (UsernameOnly 프록시). 전원을 같은 이름으로 바꿔서 10,000 건을 돌려받는다</li>
+ *     <li>records / columns : findMemberRows / findMemberColumns (JDBC)</li>
+ * </ul>
+ * <pre>
+ * ./gradlew jmh -PjmhIncludes=ProjectionBenchmark -PjmhProfilers=gc
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ProjectionBenchmark extends SpringBenchmarkState {
+
+    private static final int MEMBERS = 10_000;
+    private static final String USERNAME = "member";
+
+    private MemberRepository memberRepository;
+
+
+    @Override
+    protected void seed() {
+        insertMembers(100, MEMBERS);
+        em.createNativeQuery("update member set username = :username").setParameter("username", USERNAME)
+                .executeUpdate();
+    }
+
+
+    @Override
+    protected void prepare() {
+        memberRepository = bean(MemberRepository.class);
+    }
+
+
+    @Benchmark
+    public List<MemberDto> constructorExpression() {
+        return inTransaction(status -> memberRepository.findMemberDto());
+    }
+
+
+    @Benchmark
+    public List<UsernameOnly> interfaceProjection() {
+        return inTransaction(status -> {
+            List<UsernameOnly> projections = memberRepository.findProjectionByUsername(USERNAME);
+            projections.forEach(UsernameOnly::getUsername); // 프록시 호출 비용까지
+            return projections;
+        });
+    }
+
+
+    @Benchmark
+    public List<MemberRow> records() {
+        return inTransaction(status -> memberRepository.findMemberRows());
+    }
+
+
+    @Benchmark
+    public MemberColumns columns() {
+        return inTransaction(status -> memberRepository.findMemberColumns());
+    }
+}
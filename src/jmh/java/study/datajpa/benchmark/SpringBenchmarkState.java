@@ -0,0 +1,99 @@
+package study.datajpa.benchmark;
+
+import java.util.Arrays;
+import java.util.function.Function;
+import jakarta.persistence.EntityManager;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.SpringDataJpaApplication;
+
+/**
+ * 벤치마크 공통 상태. 임베디드 H2(in-memory)로 애플리케이션 컨텍스트를 띄우고 {@link #seed()} 로 데이터를 넣는다.
+ * 하위 클래스는 @Setup 대신 {@link #prepare()} 를 구현한다.
+ * 측정 대상 코드는 {@link #inTransaction(Function)} 안에서 실행해서 매번 새 영속성 컨텍스트를 쓴다.
+ */
+public abstract class SpringBenchmarkState {
+
+    protected ConfigurableApplicationContext context;
+    protected EntityManager em;
+    protected TransactionTemplate tx;
+
+
+    @Setup(Level.Trial)
+    public void startContext() {
+        // builder.properties() 는 기본값이라 application.yml 에 밀린다. 커맨드라인 인자로 넘긴다
+        String[] args = Arrays.stream(properties()).map(property -> "--" + property).toArray(String[]::new);
+        context = new SpringApplicationBuilder(SpringDataJpaApplication.class).web(WebApplicationType.NONE).run(args);
+        em = context.getBean(EntityManager.class);
+        tx = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        tx.executeWithoutResult(status -> seed());
+        prepare();
+    }
+
+
+    @TearDown(Level.Trial)
+    public void closeContext() {
+        context.close();
+    }
+
+
+    protected String[] properties() {
+        return new String[] {"spring.datasource.url=jdbc:h2:mem:bench;DB_CLOSE_DELAY=-1",
+                "decorator.datasource.enabled=false"};
+    }
+
+
+    /**
+     * 트랜잭션 안에서 실행. 이미 열린 트랜잭션이 있으면 참여한다.
+     */
+    protected abstract void seed();
+
+
+    /**
+     * 데이터 입력 후 빈 조회 등 준비 작업. JMH 는 상속된 @Setup 의 실행 순서를 보장하지 않으므로 여기서 한다.
+     */
+    protected void prepare() {
+    }
+
+
+    protected <T> T inTransaction(Function<TransactionStatus, T> action) {
+        return tx.execute(action::apply);
+    }
+
+
+    /**
+     * 데이터를 바꾸는 벤치마크용. 실행 후 롤백해서 다음 측정에 영향을 주지 않는다.
+     */
+    protected <T> T inRollbackTransaction(Function<TransactionStatus, T> action) {
+        return tx.execute(status -> {
+            T result = action.apply(status);
+            status.setRollbackOnly();
+            return result;
+        });
+    }
+
+
+    protected <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+
+    /**
+     * team count 개, member 는 teamCount 개 팀에 골고루 memberCount 명. 엔티티를 거치지 않고 SQL 로 바로 넣는다.
+     */
+    protected void insertMembers(int teamCount, int memberCount) {
+        em.createNativeQuery("insert into team (team_id, name, version) select x, concat('team', x), 0 from system_range(1, :count)")
+                .setParameter("count", teamCount).executeUpdate();
+        em.createNativeQuery("insert into member (member_id, username, age, teal_id, version) "
+                        + "select x, concat('member', x), mod(x, 100), mod(x, :teams) + 1, 0 from system_range(1, :count)")
+                .setParameter("teams", teamCount).setParameter("count", memberCount).executeUpdate();
+    }
+}
@@ -1,29 +1,29 @@
 package study.datajpa;
 
-import java.util.Optional;
-import java.util.UUID;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
-import org.springframework.context.annotation.Bean;
-import org.springframework.data.domain.AuditorAware;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+import study.datajpa.config.TransactionAuditing;
 
 
-@EnableJpaAuditing
+@EnableCaching
+// 등록자 / 시각은 트랜잭션마다 한 번만 구한다 (TransactionAuditing)
+@EnableJpaAuditing(auditorAwareRef = TransactionAuditing.BEAN_NAME, dateTimeProviderRef = TransactionAuditing.BEAN_NAME)
 @SpringBootApplication
 //@EnableJpaRepositories(basePackages = "jpabook.jpashop.repository")
 // springboot는 필요없다. spring date jpa를 사용하기 위한 설정
 public class SpringDataJpaApplication {
 
-    public static void main(String[] args) {
-        SpringApplication.run(SpringDataJpaApplication.class, args);
-    }
+    // 기동 단계 기록 (StartupTimingReport, /actuator/startup)
+    private static final int STARTUP_STEPS = 10_000;
 
 
-    @Bean
-    public AuditorAware<String> auditorAware() {
-        // 원래는 쿠키나 세션 같이 개인정보 id 가져와서 하는 부분
-        return () -> Optional.of(UUID.randomUUID().toString());
+    public static void main(String[] args) {
+        SpringApplication application = new SpringApplication(SpringDataJpaApplication.class);
+        application.setApplicationStartup(new BufferingApplicationStartup(STARTUP_STEPS));
+        application.run(args);
     }
 
 }
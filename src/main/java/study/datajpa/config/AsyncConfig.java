@@ -0,0 +1,76 @@
+package study.datajpa.config;
+
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.task.SimpleAsyncTaskExecutorBuilder;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+/**
+ * 비동기 repository 메서드(@Async(REPOSITORY_EXECUTOR)) 전용 실행기.
+ * <p>
+ * 작업 하나가 커넥션을 최대 하나 쓰므로 pool-size 가 비동기 조회의 커넥션 예산이다.
+ * 커넥션 풀(hikari maximum-pool-size) 보다 작게 잡아서 리포트성 조회가 단건 조회 API 의 커넥션을 뺏지 않게 한다.
+ * 큐까지 차면 rejection-policy 에 따라 거절(abort, TaskRejectedException)하거나 호출한 스레드에서 실행(caller-runs)한다.
+ * 스레드 풀 메트릭은 스프링 부트가 executor.* (name=repositoryExecutor) 로 노출한다.
+ * <p>
+ * Executor 빈이 하나라도 있으면 부트의 applicationTaskExecutor 자동 설정이 빠지므로 여기서 같이 만든다.
+ * (@Async 기본 실행기, MVC 비동기 요청, deferred 모드의 EntityManagerFactory / repository 초기화에 쓰이고
+ * spring.threads.virtual.enabled 면 가상 스레드 실행기가 된다)
+ */
+@EnableAsync
+@Configuration
+public class AsyncConfig {
+
+    public static final String REPOSITORY_EXECUTOR = "repositoryExecutor";
+
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor applicationTaskExecutorVirtualThreads(SimpleAsyncTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+
+    @Bean(REPOSITORY_EXECUTOR)
+    public ThreadPoolTaskExecutor repositoryExecutor(@Value("${datajpa.async.pool-size:3}") int poolSize,
+            @Value("${datajpa.async.queue-capacity:100}") int queueCapacity,
+            @Value("${datajpa.async.rejection-policy:abort}") String rejectionPolicy) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("repository-async-");
+        executor.setRejectedExecutionHandler(rejectedExecutionHandler(rejectionPolicy));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+
+        return executor;
+    }
+
+
+    private static RejectedExecutionHandler rejectedExecutionHandler(String policy) {
+        return switch(policy) {
+            case "abort" -> new ThreadPoolExecutor.AbortPolicy();
+            case "caller-runs" -> new ThreadPoolExecutor.CallerRunsPolicy();
+            default -> throw new IllegalArgumentException("datajpa.async.rejection-policy 는 abort | caller-runs : " + policy);
+        };
+    }
+}
@@ -0,0 +1,68 @@
+package study.datajpa.config;
+
+import java.time.Duration;
+import javax.sql.DataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+/**
+ * datajpa.datasource.replica.url 이 있으면 읽기/쓰기 데이터소스를 나눈다.
+ * <p>
+ * 읽기 전용 트랜잭션(@Transactional(readOnly = true), 트랜잭션 밖에서 호출한 repository 조회 메서드)은 replica 로,
+ * 나머지는 primary 로 간다. JPA 트랜잭션 시작 시점에는 어느 쪽인지 정할 수 없어서
+ * LazyConnectionDataSourceProxy 로 첫 쿼리까지 커넥션 획득을 미루고 Connection.setReadOnly 로 고른다.
+ * 풀 메트릭은 hikaricp.* (pool=primary | replica) 로 나온다.
+ */
+@Configuration
+@ConditionalOnProperty("datajpa.datasource.replica.url")
+public class DataSourceRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+
+        return dataSource;
+    }
+
+
+    @Bean
+    @ConfigurationProperties("datajpa.datasource.replica.hikari")
+    public HikariDataSource replicaDataSource(DataSourceProperties properties,
+            @Value("${datajpa.datasource.replica.url}") String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("replica");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(properties.determineUsername());
+        dataSource.setPassword(properties.determinePassword());
+        dataSource.setReadOnly(true);
+
+        return dataSource;
+    }
+
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+            @Qualifier("replicaDataSource") DataSource replica, MeterRegistry registry,
+            @Value("${datajpa.datasource.replica.lag-query:}") String lagQuery,
+            @Value("${datajpa.datasource.replica.max-lag:5s}") Duration maxLag,
+            @Value("${datajpa.datasource.replica.lag-check-interval:1s}") Duration lagCheckInterval,
+            @Value("${datajpa.datasource.replica.unavailable-retry-interval:5s}") Duration unavailableRetryInterval) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(primary);
+        dataSource.setReadOnlyDataSource(new ReplicaDataSource(replica, primary, lagQuery, maxLag, lagCheckInterval,
+                unavailableRetryInterval, registry));
+
+        return dataSource;
+    }
+}
@@ -0,0 +1,37 @@
+package study.datajpa.config;
+
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.jdbc.dialect.spi.DialectResolutionInfo;
+
+/**
+ * H2 2.2 는 for update nowait / wait n / skip locked 를 지원하는데 hibernate H2Dialect 는 그냥 for update 만 쓴다.
+ * (락 대기 힌트가 무시되어 LockWait 가 동작하지 않는다) 지원한다고 알려서 SQL 에 붙게 한다. wait 는 초 단위.
+ */
+public class H2LockingDialect extends H2Dialect {
+
+    public H2LockingDialect() {
+    }
+
+
+    public H2LockingDialect(DialectResolutionInfo info) {
+        super(info);
+    }
+
+
+    @Override
+    public boolean supportsNoWait() {
+        return true;
+    }
+
+
+    @Override
+    public boolean supportsWait() {
+        return true;
+    }
+
+
+    @Override
+    public boolean supportsSkipLocked() {
+        return true;
+    }
+}
@@ -0,0 +1,27 @@
+package study.datajpa.config;
+
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.autoconfigure.orm.jpa.JpaProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * H2(jdbc:h2:) 에 연결할 때만 {@link H2LockingDialect} 를 쓴다. 다른 DB 는 hibernate 의 dialect 자동 감지를 그대로 둔다.
+ * spring.jpa.database-platform 이나 hibernate.dialect 를 직접 지정하면 그쪽을 따른다.
+ */
+@Configuration
+public class H2LockingDialectConfig {
+
+    @Bean
+    HibernatePropertiesCustomizer h2LockingDialectCustomizer(DataSourceProperties dataSourceProperties,
+            JpaProperties jpaProperties) {
+        return properties -> {
+            if(jpaProperties.getDatabasePlatform() == null
+                    && dataSourceProperties.determineUrl().startsWith("jdbc:h2:")) {
+                properties.putIfAbsent(AvailableSettings.DIALECT, H2LockingDialect.class.getName());
+            }
+        };
+    }
+}
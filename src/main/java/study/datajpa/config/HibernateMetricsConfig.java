@@ -0,0 +1,34 @@
+package study.datajpa.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import study.datajpa.monitoring.CountingStatementInspector;
+import study.datajpa.monitoring.EntityLoadCounter;
+
+/**
+ * repository 호출별 SQL 수 / 로딩 엔티티 수 측정을 위한 hibernate 설정.
+ * flush, 컬렉션 fetch 등 전체 통계는 hibernate.generate_statistics + hibernate-micrometer 가 hibernate.* 메트릭으로 노출한다.
+ */
+@Configuration
+public class HibernateMetricsConfig {
+
+    @Bean
+    HibernatePropertiesCustomizer statementInspectorCustomizer() {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, new CountingStatementInspector());
+    }
+
+
+    @Bean
+    SmartInitializingSingleton entityLoadCounterRegistrar(EntityManagerFactory emf) {
+        return () -> emf.unwrap(SessionFactoryImplementor.class).getServiceRegistry()
+                .requireService(EventListenerRegistry.class)
+                .appendListeners(EventType.POST_LOAD, new EntityLoadCounter());
+    }
+}
@@ -0,0 +1,21 @@
+package study.datajpa.config;
+
+import java.sql.SQLException;
+import com.zaxxer.hikari.SQLExceptionOverride;
+
+/**
+ * Hikari 는 SQLTimeoutException 이 나면 커넥션이 깨졌다고 보고 닫아버린다. H2 는 락 대기 실패(nowait / wait n)도
+ * SQLTimeoutException 으로 던지므로 그대로 두면 롤백할 커넥션이 없어서 PessimisticLockingFailureException 대신
+ * "Unable to rollback" 이 난다. 락 대기 실패는 커넥션을 그대로 쓴다.
+ */
+public class LockTimeoutExceptionOverride implements SQLExceptionOverride {
+
+    // org.h2.api.ErrorCode.LOCK_TIMEOUT_1
+    private static final int H2_LOCK_TIMEOUT = 50200;
+
+
+    @java.lang.Override // SQLExceptionOverride.Override 와 이름이 겹친다
+    public Override adjudicate(SQLException e) {
+        return e.getErrorCode() == H2_LOCK_TIMEOUT ? Override.DO_NOT_EVICT : Override.CONTINUE_EVICT;
+    }
+}
@@ -0,0 +1,119 @@
+package study.datajpa.config;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import javax.sql.DataSource;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.util.StringUtils;
+
+/**
+ * 읽기 전용 트랜잭션이 쓰는 데이터소스. 기본은 replica 풀이고 아래 경우에는 primary 로 보낸다.
+ * <ul>
+ *     <li>replica 커넥션을 얻지 못한 경우 (reason=unavailable)</li>
+ *     <li>lag-query 로 잰 복제 지연(초)이 max-lag 를 넘은 경우 (reason=lag)</li>
+ * </ul>
+ * 지연은 lag-check-interval 마다 한 번만 잰다. lag-query 가 비어 있으면 재지 않는다.
+ * replica 커넥션을 한 번 못 얻으면 unavailable-retry-interval 동안은 replica 를 시도하지 않고 바로 primary 로 보낸다.
+ * (매 읽기가 커넥션 타임아웃만큼 기다리지 않게)
+ */
+@Slf4j
+public class ReplicaDataSource extends DelegatingDataSource {
+
+    private final DataSource primary;
+    private final String lagQuery;
+    private final Duration maxLag;
+    private final long lagCheckIntervalNanos;
+    private final long unavailableRetryNanos;
+    private final Counter lagFallback;
+    private final Counter unavailableFallback;
+
+    private volatile boolean lagging;
+    private volatile long lastLagCheck;
+    private volatile boolean lagChecked;
+    private volatile long unavailableSince;
+    private volatile boolean unavailable;
+
+
+    public ReplicaDataSource(DataSource replica, DataSource primary, String lagQuery, Duration maxLag,
+            Duration lagCheckInterval, Duration unavailableRetryInterval, MeterRegistry registry) {
+        super(replica);
+        this.primary = primary;
+        this.lagQuery = lagQuery;
+        this.maxLag = maxLag;
+        this.lagCheckIntervalNanos = lagCheckInterval.toNanos();
+        this.unavailableRetryNanos = unavailableRetryInterval.toNanos();
+        this.lagFallback = fallbackCounter(registry, "lag");
+        this.unavailableFallback = fallbackCounter(registry, "unavailable");
+    }
+
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if(isUnavailable()) {
+            unavailableFallback.increment();
+            return primary.getConnection();
+        }
+
+        if(isLagging()) {
+            lagFallback.increment();
+            return primary.getConnection();
+        }
+
+        try {
+            Connection connection = super.getConnection();
+            unavailable = false;
+            return connection;
+        } catch(SQLException e) {
+            log.warn("replica unavailable, falling back to primary : {}", e.getMessage());
+            unavailableSince = System.nanoTime();
+            unavailable = true;
+            unavailableFallback.increment();
+            return primary.getConnection();
+        }
+    }
+
+
+    private boolean isUnavailable() {
+        return unavailable && System.nanoTime() - unavailableSince < unavailableRetryNanos;
+    }
+
+
+    private boolean isLagging() {
+        if(!StringUtils.hasText(lagQuery)) {
+            return false;
+        }
+
+        long now = System.nanoTime();
+
+        if(!lagChecked || now - lastLagCheck >= lagCheckIntervalNanos) {
+            lagging = measureLagSeconds() > maxLag.toSeconds();
+            lastLagCheck = now;
+            lagChecked = true;
+        }
+
+        return lagging;
+    }
+
+
+    private double measureLagSeconds() {
+        try(Connection connection = super.getConnection(); Statement statement = connection.createStatement();
+                ResultSet rs = statement.executeQuery(lagQuery)) {
+            return rs.next() ? rs.getDouble(1) : 0;
+        } catch(SQLException e) {
+            // 지연을 잴 수 없으면 getConnection 에서 unavailable 로 처리된다
+            return 0;
+        }
+    }
+
+
+    private static Counter fallbackCounter(MeterRegistry registry, String reason) {
+        return Counter.builder("datasource.replica.fallback").tag("reason", reason)
+                .description("read-only connections served by the primary instead of the replica").register(registry);
+    }
+}
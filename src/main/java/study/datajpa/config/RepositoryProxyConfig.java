@@ -0,0 +1,32 @@
+package study.datajpa.config;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.repository.core.support.RepositoryFactoryBeanSupport;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+
+/**
+ * 빈으로 등록된 {@link RepositoryProxyPostProcessor} 를 모든 spring data repository 프록시에 적용한다.
+ * 트랜잭션 advice 보다 나중에 추가되므로 트랜잭션 안쪽에서 실행된다.
+ */
+@Configuration
+public class RepositoryProxyConfig {
+
+    @Bean
+    static BeanPostProcessor repositoryProxyPostProcessorRegistrar(
+            ObjectProvider<RepositoryProxyPostProcessor> postProcessors) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if(bean instanceof RepositoryFactoryBeanSupport<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> postProcessors.orderedStream()
+                            .forEach(factory::addRepositoryProxyPostProcessor));
+                }
+
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,136 @@
+package study.datajpa.config;
+
+import java.security.Principal;
+import java.time.Clock;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAccessor;
+import java.util.Optional;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.auditing.DateTimeProvider;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+/**
+ * 스프링 데이터 auditing 의 등록자 / 시각. 트랜잭션마다 한 번만 구해서 그 트랜잭션에서 저장, 수정되는 엔티티가 같이 쓴다.
+ * (엔티티마다 시계를 읽거나 등록자를 다시 구하지 않는다)
+ * <ul>
+ *     <li>등록자 : 요청의 인증된 사용자(getUserPrincipal). 요청 밖(배치 등)이거나 인증되지 않았으면 system</li>
+ *     <li>시각 : 트랜잭션에서 처음 저장 / 수정한 시각</li>
+ * </ul>
+ * 트랜잭션 밖에서는 부를 때마다 새로 구한다. REQUIRES_NEW 로 끼어든 트랜잭션은 따로 구한다.
+ * <p>
+ * datajpa.auditing.trusted-header 를 주면 인증된 사용자가 없을 때 그 요청 헤더 값을 등록자로 쓴다. (기본은 끔)
+ * 클라이언트가 아무 값이나 넣을 수 있으므로 그 헤더를 덮어쓰는 신뢰할 수 있는 게이트웨이 뒤에서만 켠다.
+ */
+@Component(TransactionAuditing.BEAN_NAME)
+public class TransactionAuditing implements AuditorAware<String>, DateTimeProvider {
+
+    public static final String BEAN_NAME = "transactionAuditing";
+    public static final String SYSTEM_AUDITOR = "system";
+
+    private final Clock clock = Clock.systemDefaultZone();
+    private final String trustedHeader;
+
+
+    public TransactionAuditing(@Value("${datajpa.auditing.trusted-header:}") String trustedHeader) {
+        this.trustedHeader = trustedHeader;
+    }
+
+
+    @Override
+    public Optional<String> getCurrentAuditor() {
+        return Optional.of(current().auditor());
+    }
+
+
+    @Override
+    public Optional<TemporalAccessor> getNow() {
+        return Optional.of(current().now());
+    }
+
+
+    private AuditContext current() {
+        if(!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return newContext();
+        }
+
+        AuditContext context = (AuditContext) TransactionSynchronizationManager.getResource(this);
+
+        if(context == null) {
+            context = newContext();
+            TransactionSynchronizationManager.bindResource(this, context);
+            TransactionSynchronizationManager.registerSynchronization(new AuditContextSynchronization(context));
+        }
+
+        return context;
+    }
+
+
+    private AuditContext newContext() {
+        return new AuditContext(resolveAuditor(), LocalDateTime.now(clock));
+    }
+
+
+    private String resolveAuditor() {
+        if(RequestContextHolder.getRequestAttributes() instanceof ServletRequestAttributes attributes) {
+            HttpServletRequest request = attributes.getRequest();
+            Principal principal = request.getUserPrincipal();
+
+            if(principal != null && StringUtils.hasText(principal.getName())) {
+                return principal.getName();
+            }
+
+            if(StringUtils.hasText(trustedHeader)) {
+                String userId = request.getHeader(trustedHeader);
+
+                if(StringUtils.hasText(userId)) {
+                    return userId;
+                }
+            }
+        }
+
+        return SYSTEM_AUDITOR;
+    }
+
+
+    private record AuditContext(String auditor, LocalDateTime now) {
+    }
+
+
+    /**
+     * 바깥 트랜잭션이 잠시 멈추면 (REQUIRES_NEW) 같이 풀었다가 돌아오면 다시 묶는다.
+     */
+    private class AuditContextSynchronization implements TransactionSynchronization {
+
+        private final AuditContext context;
+
+
+        AuditContextSynchronization(AuditContext context) {
+            this.context = context;
+        }
+
+
+        @Override
+        public void suspend() {
+            TransactionSynchronizationManager.unbindResource(TransactionAuditing.this);
+        }
+
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(TransactionAuditing.this, context);
+        }
+
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(TransactionAuditing.this);
+        }
+    }
+}
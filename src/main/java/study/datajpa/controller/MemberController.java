@@ -1,43 +1,154 @@
 package study.datajpa.controller;
 
 
+import java.util.List;
+import java.util.Locale;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Window;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import study.datajpa.dto.CursorPage;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.repository.CountMode;
+import study.datajpa.repository.MemberCursor;
 import study.datajpa.repository.MemberRepository;
+import study.datajpa.service.ExportFormat;
+import study.datajpa.service.MemberExportService;
+import study.datajpa.service.MemberQueryService;
 
 @RestController
 @RequiredArgsConstructor
 public class MemberController {
 
+    private static final int MAX_SCROLL_SIZE = 2000;
+
     private final MemberRepository memberRepository;
+    private final MemberQueryService memberQueryService;
+    private final MemberExportService memberExportService;
 
 
-    @GetMapping("/members/{id}")
+    @GetMapping({"/members/{id}", "/members2/{id}"})
     public String findMember(@PathVariable("id") Long id) {
-        Member member = memberRepository.findById(1L).get();
+        // 도메인 클래스 컨버터(@PathVariable Member)는 엔티티 전체를 조회하므로 쓰지 않는다
+        return memberQueryService.findUsername(id)
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "회원이 없습니다. id=" + id));
+    }
 
-        return member.getUsername();
+
+    /**
+     * count=EXACT(기본) | CACHED | NONE. NONE 이면 count 쿼리 없이 Slice 로 응답한다.
+     */
+    @GetMapping("/members")
+    public Slice<MemberDto> list(Pageable pageable,
+            @RequestParam(value = "count", defaultValue = "EXACT") CountMode countMode) {
+        return memberRepository.findAll(pageable, countMode).map(MemberDto::new);
     }
 
 
-    @GetMapping("/members2/{id}")
-    public String findMember(@PathVariable("id") Member member) {
+    /**
+     * keyset 페이징. 첫 페이지는 cursor 를 비워서(?cursor=) 요청하고, 이후엔 응답의 nextCursor 를 넘긴다.
+     */
+    @GetMapping(value = "/members", params = "cursor")
+    public CursorPage<MemberDto> scroll(@RequestParam("cursor") String cursor,
+            @RequestParam(value = "size", defaultValue = "20") int size) {
+        if(size < 1 || size > MAX_SCROLL_SIZE) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "size 는 1 ~ " + MAX_SCROLL_SIZE + " 사이여야 합니다.");
+        }
 
-        return member.getUsername();
+        ScrollPosition position;
+        try {
+            position = MemberCursor.decode(cursor);
+        } catch(IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+
+        Window<Member> window = memberRepository.findAllByOrderByUsernameAscIdAsc(position, Limit.of(size));
+
+        List<MemberDto> content = window.map(MemberDto::new).getContent();
+        String nextCursor = window.hasNext() ? MemberCursor.encode(window.getContent().get(window.size() - 1)) : null;
+
+        return new CursorPage<>(content, nextCursor, window.hasNext());
     }
 
 
-    @GetMapping("/members")
-    public Page<MemberDto> list(Pageable pageable) {
-        return memberRepository.findAll(pageable)
-                .map(member -> new MemberDto(member.getId(), member.getUsername(), null));
+    /**
+     * 전체 회원 export. /members 를 페이지마다 부르지 않고 쿼리 한 번으로 끝까지 내려받는다. (count 쿼리 없음)
+     * format=NDJSON(기본) | CSV. Accept-Encoding 에 gzip 이 있으면 압축해서 보낸다.
+     * 응답은 요청 스레드가 아니라 비동기 실행기(applicationTaskExecutor)에서 쓰고, 길이를 모르므로 chunked 로 나간다.
+     * 비동기 타임아웃은 이 요청에만 datajpa.export.timeout 으로 늘린다.
+     */
+    @GetMapping("/members/export")
+    public ResponseEntity<StreamingResponseBody> export(
+            @RequestParam(value = "format", defaultValue = "NDJSON") ExportFormat format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            NativeWebRequest webRequest) {
+        // StreamingResponseBody 는 WebAsyncTask 처럼 타임아웃을 따로 받지 않는다. startAsync 전에 요청 단위로 바꾼다
+        WebAsyncUtils.getAsyncManager(webRequest).getAsyncWebRequest()
+                .setTimeout(memberExportService.timeout().toMillis());
+        boolean gzip = acceptsGzip(acceptEncoding);
+
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, format.contentType())
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"members." + format.extension() + "\"")
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if(gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+
+        return response.body(out -> memberExportService.export(format, gzip, out));
+    }
+
+
+    /**
+     * Accept-Encoding 의 q 값까지 본다. gzip;q=0 은 거절, gzip 이 없으면 * 를 따른다.
+     */
+    static boolean acceptsGzip(String acceptEncoding) {
+        if(acceptEncoding == null) {
+            return false;
+        }
+
+        Double gzip = null;
+        Double wildcard = null;
+        for(String element : acceptEncoding.split(",")) {
+            String[] parts = element.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for(int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if(param.length() > 2 && (param.charAt(0) == 'q' || param.charAt(0) == 'Q') && param.charAt(1) == '=') {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch(NumberFormatException e) {
+                        q = 0; // 읽을 수 없는 q 는 받지 않는 것으로
+                    }
+                }
+            }
+
+            if(coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = q;
+            } else if(coding.equals("*")) {
+                wildcard = q;
+            }
+        }
+
+        Double q = gzip != null ? gzip : wildcard;
+        return q != null && q > 0;
     }
 
 
@@ -0,0 +1,22 @@
+package study.datajpa.dto;
+
+import java.util.List;
+import lombok.Data;
+
+/**
+ * keyset 페이징 응답. 다음 페이지는 nextCursor 를 그대로 넘겨서 조회한다.
+ */
+@Data
+public class CursorPage<T> {
+
+    private List<T> content;
+    private String nextCursor;
+    private boolean hasNext;
+
+
+    public CursorPage(List<T> content, String nextCursor, boolean hasNext) {
+        this.content = content;
+        this.nextCursor = nextCursor;
+        this.hasNext = hasNext;
+    }
+}
@@ -0,0 +1,77 @@
+package study.datajpa.dto;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * 회원 조회 결과를 컬럼별 배열로 담는다. 행마다 객체를 만들지 않아서 대량 리포트 조회의 garbage 가 적다.
+ * 팀 이름은 같은 팀이면 같은 String 인스턴스를 공유한다. (MemberRepositoryCustom.findMemberColumns)
+ */
+public final class MemberColumns {
+
+    private long[] ids;
+    private String[] usernames;
+    private String[] teamNames;
+    private int size;
+
+
+    public MemberColumns(int initialCapacity) {
+        int capacity = Math.max(initialCapacity, 16);
+        this.ids = new long[capacity];
+        this.usernames = new String[capacity];
+        this.teamNames = new String[capacity];
+    }
+
+
+    public void add(long id, String username, String teamName) {
+        if(size == ids.length) {
+            int capacity = size + (size >> 1);
+            ids = Arrays.copyOf(ids, capacity);
+            usernames = Arrays.copyOf(usernames, capacity);
+            teamNames = Arrays.copyOf(teamNames, capacity);
+        }
+
+        ids[size] = id;
+        usernames[size] = username;
+        teamNames[size] = teamName;
+        size++;
+    }
+
+
+    public int size() {
+        return size;
+    }
+
+
+    public long id(int index) {
+        return ids[checkIndex(index)];
+    }
+
+
+    public String username(int index) {
+        return usernames[checkIndex(index)];
+    }
+
+
+    public String teamName(int index) {
+        return teamNames[checkIndex(index)];
+    }
+
+
+    /**
+     * 복사본. 자주 부를 거면 {@link #id(int)} 로 읽는다.
+     */
+    public long[] ids() {
+        return Arrays.copyOf(ids, size);
+    }
+
+
+    public MemberRow row(int index) {
+        return new MemberRow(id(index), username(index), teamName(index));
+    }
+
+
+    private int checkIndex(int index) {
+        return Objects.checkIndex(index, size);
+    }
+}
@@ -1,6 +1,7 @@
 package study.datajpa.dto;
 
 import lombok.Data;
+import study.datajpa.entity.Member;
 
 @Data
 public class MemberDto {
@@ -15,4 +16,12 @@ public class MemberDto {
         this.username = username;
         this.teamName = teamName;
     }
+
+
+    /**
+     * 지연 로딩인 team 이름까지 채운다. 목록에서 쓸때는 batch fetch 로 팀을 묶어서 조회한다.
+     */
+    public MemberDto(Member member) {
+        this(member.getId(), member.getUsername(), member.getTeam() == null ? null : member.getTeam().getName());
+    }
 }
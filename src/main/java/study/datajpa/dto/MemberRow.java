@@ -0,0 +1,8 @@
+package study.datajpa.dto;
+
+/**
+ * {@link MemberDto} 의 조회 전용 버전. id 가 primitive 이고 setter / equals 생성 코드가 없다.
+ * JDBC 결과를 바로 옮겨 담는다. (MemberRepositoryCustom.findMemberRows)
+ */
+public record MemberRow(long id, String username, String teamName) {
+}
@@ -3,25 +3,29 @@ package study.datajpa.entity;
 
 import java.time.LocalDateTime;
 import jakarta.persistence.Column;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.MappedSuperclass;
 import lombok.Getter;
-import org.hibernate.annotations.CreationTimestamp;
-import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedBy;
+import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.annotation.LastModifiedBy;
 import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 
-//@EntityListeners(AuditingEntityListener.class)
+/**
+ * 등록 / 수정 시각과 등록자 / 수정자는 스프링 데이터 auditing 한 곳에서만 채운다. (TransactionAuditing)
+ * hibernate @CreationTimestamp / @UpdateTimestamp 를 같이 달면 엔티티마다 시계를 두 번 읽고 값도 서로 덮어쓴다.
+ */
+@EntityListeners(AuditingEntityListener.class)
 @MappedSuperclass
 @Getter
 public class BaseEntity {
 
-    @CreationTimestamp
+    @CreatedDate
     @Column(updatable = false)
     private LocalDateTime createDate;
 
-    @UpdateTimestamp
     @LastModifiedDate
     private LocalDateTime updateDate;
 
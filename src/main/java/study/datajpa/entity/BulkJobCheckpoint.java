@@ -0,0 +1,39 @@
+package study.datajpa.entity;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+/**
+ * 청크 단위 벌크 작업의 진행 위치. 청크와 같은 트랜잭션에서 갱신되므로 중간에 죽어도 마지막 커밋된 청크 다음부터 재개할 수 있다.
+ * 작업이 끝나면 지운다.
+ */
+@Entity
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+public class BulkJobCheckpoint {
+
+    @Id
+    private String jobName;
+
+    private long lastId;
+
+    private long maxId;
+
+    private long updatedRows;
+
+
+    public BulkJobCheckpoint(String jobName, long lastId, long maxId) {
+        this.jobName = jobName;
+        this.lastId = lastId;
+        this.maxId = maxId;
+    }
+
+
+    public void advance(long lastId, int updatedRows) {
+        this.lastId = lastId;
+        this.updatedRows += updatedRows;
+    }
+}
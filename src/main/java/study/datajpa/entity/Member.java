@@ -3,30 +3,42 @@ package study.datajpa.entity;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.FetchType;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.ToString;
+import org.hibernate.Hibernate;
 import org.hibernate.annotations.NamedQuery;
+import study.datajpa.service.MemberCacheEvictListener;
 
 @Entity
+@EntityListeners(MemberCacheEvictListener.class)
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 @ToString(of = {"id", "username", "age"})
-@NamedQuery(name = "findByUsername", query = "select m from Member m where m.username = :username")
+@NamedQuery(name = "findByUsername", query = "select m from Member m where m.username = :username", cacheable = true)
+// repository 쿼리의 조건 / 정렬 컬럼. keyset 페이징 정렬(username, id) (age, username, id) (age, id)까지 인덱스 순서로 읽게 pk 를 붙인다
+// 쿼리를 추가하면 IndexAdvisor 로그(기동 시)에서 인덱스 없는 컬럼을 확인한다
+@Table(indexes = {
+        @Index(name = "idx_member_username", columnList = "username, member_id"),
+        @Index(name = "idx_member_username_age", columnList = "username, age"),
+        @Index(name = "idx_member_age", columnList = "age, member_id"),
+        @Index(name = "idx_member_age_username", columnList = "age, username, member_id")})
 public class Member extends BaseEntity {
 
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence(sequenceName = "member_seq")
     @Column(name = "member_id")
     private Long id;
 
@@ -37,6 +49,11 @@ public class Member extends BaseEntity {
     @JoinColumn(name = "teal_id")
     private Team team;
 
+    // 낙관적 락. 동시 수정은 커밋 때 ObjectOptimisticLockingFailureException (OptimisticRetryExecutor 로 재시도)
+    @Version
+    @Setter(AccessLevel.NONE)
+    private long version;
+
 
     public Member(String username) {
         this.username = username;
@@ -59,6 +76,10 @@ public class Member extends BaseEntity {
 
     public void changeTeam(Team team) {
         this.team = team;
-        team.getMembers().add(this);
+
+        // 연관관계 주인은 Member.team. 초기화 안 된 (mappedBy) 컬렉션의 add 는 로딩 없이 큐에 쌓였다가 초기화될 때 반영된다.
+        if(Hibernate.isInitialized(team)) {
+            team.getMembers().add(this);
+        }
     }
 }
@@ -0,0 +1,20 @@
+package study.datajpa.entity;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import java.lang.annotation.Retention;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import java.lang.annotation.Target;
+import org.hibernate.annotations.IdGeneratorType;
+
+/**
+ * pooled 시퀀스 식별자. IDENTITY 와 달리 insert 전에 식별자를 미리 받아오므로 JDBC insert batch 가 동작한다.
+ * allocation size 는 {@link PooledSequenceGenerator#ALLOCATION_SIZE} 설정으로 바꾼다.
+ */
+@IdGeneratorType(PooledSequenceGenerator.class)
+@Retention(RUNTIME)
+@Target({FIELD, METHOD})
+public @interface PooledSequence {
+
+    String sequenceName();
+}
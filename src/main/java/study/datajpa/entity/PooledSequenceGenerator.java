@@ -0,0 +1,42 @@
+package study.datajpa.entity;
+
+import java.util.Properties;
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.engine.config.spi.StandardConverters;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.id.factory.spi.CustomIdGeneratorCreationContext;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+/**
+ * {@link PooledSequence} 구현. 시퀀스 한번 호출로 allocation size 만큼 식별자를 메모리에서 할당한다. (pooled-lo)
+ * <p>
+ * allocation size 는 hibernate 설정(spring.jpa.properties)의 {@value #ALLOCATION_SIZE} 로 지정하고
+ * hibernate.jdbc.batch_size 와 같거나 배수로 맞추는게 좋다.
+ */
+public class PooledSequenceGenerator extends SequenceStyleGenerator {
+
+    public static final String ALLOCATION_SIZE = "datajpa.id.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    private final String sequenceName;
+
+
+    public PooledSequenceGenerator(PooledSequence config, java.lang.reflect.Member member, CustomIdGeneratorCreationContext context) {
+        this.sequenceName = config.sequenceName();
+    }
+
+
+    @Override
+    public void configure(Type type, Properties params, ServiceRegistry serviceRegistry) throws MappingException {
+        int allocationSize = serviceRegistry.requireService(ConfigurationService.class)
+                .getSetting(ALLOCATION_SIZE, StandardConverters.INTEGER, DEFAULT_ALLOCATION_SIZE);
+
+        params.setProperty(SEQUENCE_PARAM, sequenceName);
+        params.setProperty(INCREMENT_PARAM, String.valueOf(allocationSize));
+        params.setProperty(OPT_PARAM, "pooled-lo");
+
+        super.configure(type, params, serviceRegistry);
+    }
+}
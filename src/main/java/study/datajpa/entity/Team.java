@@ -3,30 +3,41 @@ package study.datajpa.entity;
 
 import java.util.ArrayList;
 import java.util.List;
+import jakarta.persistence.Cacheable;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
-import jakarta.persistence.GeneratedValue;
-import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.OneToMany;
+import jakarta.persistence.Table;
+import jakarta.persistence.Version;
 import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
+@Cacheable // 2차 캐시를 켠 경우(cache 프로파일)에만 적용된다
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "team")
+@Table(indexes = @Index(name = "idx_team_name", columnList = "name")) // findFirstByName
 @Getter
 @Setter
 @NoArgsConstructor(access = AccessLevel.PROTECTED)
 public class Team {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence(sequenceName = "team_seq")
     @Column(name = "team_id")
     private Long id;
 
     private String name;
 
+    @Version
+    @Setter(AccessLevel.NONE)
+    private long version;
+
     @OneToMany(mappedBy = "team")
     private List<Member> members = new ArrayList<>();
 
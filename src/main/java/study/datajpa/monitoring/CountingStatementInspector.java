@@ -0,0 +1,15 @@
+package study.datajpa.monitoring;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * hibernate 가 실행하는 SQL 수를 센다. SQL 은 바꾸지 않는다.
+ */
+public class CountingStatementInspector implements StatementInspector {
+
+    @Override
+    public String inspect(String sql) {
+        QueryCounter.statementExecuted();
+        return sql;
+    }
+}
@@ -0,0 +1,15 @@
+package study.datajpa.monitoring;
+
+import org.hibernate.event.spi.PostLoadEvent;
+import org.hibernate.event.spi.PostLoadEventListener;
+
+/**
+ * DB 에서 로딩된 엔티티 수를 센다. (2차 캐시에서 조립된 경우 포함)
+ */
+public class EntityLoadCounter implements PostLoadEventListener {
+
+    @Override
+    public void onPostLoad(PostLoadEvent event) {
+        QueryCounter.entityLoaded();
+    }
+}
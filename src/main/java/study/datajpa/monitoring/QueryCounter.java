@@ -0,0 +1,37 @@
+package study.datajpa.monitoring;
+
+/**
+ * 현재 스레드에서 실행된 SQL 수, 로딩된 엔티티 수 카운터.
+ * {@link CountingStatementInspector}, {@link EntityLoadCounter} 가 올리고 {@link RepositoryMetrics} 가 호출 전후 차이를 기록한다.
+ */
+public final class QueryCounter {
+
+    private static final ThreadLocal<Counts> COUNTS = ThreadLocal.withInitial(Counts::new);
+
+
+    private QueryCounter() {
+    }
+
+
+    static void statementExecuted() {
+        COUNTS.get().statements++;
+    }
+
+
+    static void entityLoaded() {
+        COUNTS.get().entities++;
+    }
+
+
+    static Counts current() {
+        return COUNTS.get();
+    }
+
+
+    static final class Counts {
+
+        long statements;
+        long entities;
+        int depth;
+    }
+}
@@ -0,0 +1,38 @@
+package study.datajpa.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * /actuator/queryplans : 쿼리 계획 캐시 hit 비율과 파싱 시간이 긴 순 top N 쿼리.
+ */
+@Component
+@Endpoint(id = "queryplans")
+@RequiredArgsConstructor
+public class QueryPlanEndpoint {
+
+    private static final int DEFAULT_TOP = 20;
+
+    private final QueryPlanStats queryPlanStats;
+
+
+    @ReadOperation
+    public Map<String, Object> summary(@Nullable Integer top) {
+        long hits = queryPlanStats.getHitCount();
+        long misses = queryPlanStats.getMissCount();
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("hits", hits);
+        summary.put("misses", misses);
+        summary.put("hitRatio", hits + misses == 0 ? 0 : (double) hits / (hits + misses));
+        summary.put("distinctQueries", queryPlanStats.getQueryCount());
+        summary.put("queries", queryPlanStats.top(top == null ? DEFAULT_TOP : top));
+
+        return summary;
+    }
+}
@@ -0,0 +1,108 @@
+package study.datajpa.monitoring;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import jakarta.persistence.EntityManagerFactory;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.stereotype.Component;
+
+/**
+ * hibernate 쿼리 계획 캐시의 파싱 비용. hit / miss 건수는 hibernate-micrometer 가 hibernate.cache.query.plan 으로 낸다.
+ * <ul>
+ *     <li>hibernate.query.plan.compilation : 계획 캐시 miss 횟수와 HQL/JPQL 파싱 누적 시간.
+ *     miss 에는 첫 실행 때 만드는 SQL 변환 계획도 포함된다</li>
+ *     <li>hibernate.query.plan.queries : 지금까지 본 서로 다른 HQL/JPQL 수. 계속 늘면 동적 JPQL 이 계획 캐시를 휘젓는 중</li>
+ * </ul>
+ * hibernate.generate_statistics 가 켜져 있어야 값이 쌓인다. (쿼리별 통계는 hibernate.statistics.query_max_size 개까지)
+ * <p>
+ * deferred 부트스트랩에서는 EntityManagerFactory 가 백그라운드에서 만들어지므로 생성자에서 Statistics 를 꺼내면
+ * 싱글톤 잠금을 쥔 채 EMF 를 기다리게 된다. 처음 쓸 때 꺼낸다.
+ */
+@Component
+public class QueryPlanStats implements MeterBinder {
+
+    private final EntityManagerFactory emf;
+
+    private volatile Statistics statistics;
+
+
+    public QueryPlanStats(EntityManagerFactory emf) {
+        this.emf = emf;
+    }
+
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionTimer.builder("hibernate.query.plan.compilation", this, QueryPlanStats::getMissCount,
+                        QueryPlanStats::totalCompilationMicros, TimeUnit.MICROSECONDS)
+                .description("HQL/JPQL parsing on query plan cache misses").register(registry);
+        Gauge.builder("hibernate.query.plan.queries", this, QueryPlanStats::getQueryCount)
+                .description("distinct HQL/JPQL query strings seen").register(registry);
+    }
+
+
+    public long getHitCount() {
+        return statistics().getQueryPlanCacheHitCount();
+    }
+
+
+    public long getMissCount() {
+        return statistics().getQueryPlanCacheMissCount();
+    }
+
+
+    public int getQueryCount() {
+        return statistics().getQueries().length;
+    }
+
+
+    /**
+     * 파싱 누적 시간이 긴 순
+     */
+    public List<QueryPlanSummary> top(int n) {
+        Statistics statistics = statistics();
+
+        return queryStatistics().map(query -> new QueryPlanSummary(query, statistics.getQueryStatistics(query)))
+                .sorted(Comparator.comparingLong(QueryPlanSummary::compilationMicros).reversed()).limit(n).toList();
+    }
+
+
+    private long totalCompilationMicros() {
+        Statistics statistics = statistics();
+
+        return queryStatistics().mapToLong(
+                query -> statistics.getQueryStatistics(query).getPlanCompilationTotalMicroseconds()).sum();
+    }
+
+
+    private Stream<String> queryStatistics() {
+        return Arrays.stream(statistics().getQueries());
+    }
+
+
+    private Statistics statistics() {
+        if(statistics == null) {
+            statistics = emf.unwrap(SessionFactory.class).getStatistics();
+        }
+
+        return statistics;
+    }
+
+
+    public record QueryPlanSummary(String query, long hits, long misses, long compilationMicros) {
+
+        QueryPlanSummary(String query, QueryStatistics statistics) {
+            this(query, statistics.getPlanCacheHitCount(), statistics.getPlanCacheMissCount(),
+                    statistics.getPlanCompilationTotalMicroseconds());
+        }
+    }
+}
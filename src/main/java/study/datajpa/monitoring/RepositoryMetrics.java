@@ -0,0 +1,69 @@
+package study.datajpa.monitoring;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+import org.springframework.stereotype.Component;
+
+/**
+ * repository 메서드별 호출당 SQL 수(repository.sql.statements), 로딩 엔티티 수(repository.entities.loaded) 기록.
+ * 지연시간은 스프링 부트 기본 spring.data.repository.invocations 타이머를 쓴다.
+ * <p>
+ * 트랜잭션 안쪽에서 측정하므로 커밋 시점 flush 로 나가는 SQL 은 포함되지 않는다.
+ * repository 안에서 다른 repository 를 호출하면 바깥 호출에만 기록한다.
+ */
+@Component
+@RequiredArgsConstructor
+public class RepositoryMetrics implements RepositoryProxyPostProcessor {
+
+    private final MeterRegistry registry;
+    private final Map<Method, Meters> meters = new ConcurrentHashMap<>();
+
+
+    @Override
+    public void postProcess(ProxyFactory factory, RepositoryInformation repositoryInformation) {
+        String repository = repositoryInformation.getRepositoryInterface().getSimpleName();
+
+        factory.addAdvice((MethodInterceptor) invocation -> {
+            QueryCounter.Counts counts = QueryCounter.current();
+            long statements = counts.statements;
+            long entities = counts.entities;
+            counts.depth++;
+
+            try {
+                return invocation.proceed();
+            } finally {
+                if(--counts.depth == 0) {
+                    Meters meter = meters.computeIfAbsent(invocation.getMethod(),
+                            method -> new Meters(registry, repository, method.getName()));
+                    meter.statements.record(counts.statements - statements);
+                    meter.entities.record(counts.entities - entities);
+                }
+            }
+        });
+    }
+
+
+    private static final class Meters {
+
+        final DistributionSummary statements;
+        final DistributionSummary entities;
+
+
+        Meters(MeterRegistry registry, String repository, String method) {
+            this.statements = DistributionSummary.builder("repository.sql.statements")
+                    .description("SQL statements per repository call").tags("repository", repository, "method", method)
+                    .register(registry);
+            this.entities = DistributionSummary.builder("repository.entities.loaded")
+                    .description("entities loaded per repository call").tags("repository", repository, "method", method)
+                    .register(registry);
+        }
+    }
+}
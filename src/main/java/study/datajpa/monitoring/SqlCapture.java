@@ -0,0 +1,205 @@
+package study.datajpa.monitoring;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * p6spy / org.hibernate.SQL debug 로그 대신 쓰는 SQL 수집기. (datasource-proxy 리스너)
+ * <p>
+ * 파라미터와 in 목록을 지운 정규화 SQL 별로 모든 실행의 횟수 / 시간을 모아서 {@link #top(int)} 로 느린 순 요약을 준다.
+ * 로그는 느린 쿼리(slow-threshold 이상)는 항상, 나머지는 sample-rate 비율만 남긴다. (샘플링은 로그에만 적용)
+ * 로그로 남길 SQL 은 고정 크기 버퍼에 넣고 별도 스레드가 쓴다. 버퍼가 차면 버리고 개수만 센다. (요청 스레드는 기다리지 않는다)
+ * 정규화 결과는 원본 SQL 별로 캐시한다. Hibernate SQL 은 ? 바인딩이라 원본 종류가 적어서 정규식은 처음 본 SQL 에만 돈다.
+ */
+@Slf4j
+@Component
+public class SqlCapture implements QueryExecutionListener, DisposableBean {
+
+    private static final Pattern IN_LIST = Pattern.compile("(?i)\\bin\\s*\\(\\s*\\?(\\s*,\\s*\\?)*\\s*\\)");
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("(?<![\\w.])\\d+(\\.\\d+)?\\b");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final double sampleRate;
+    private final long slowThresholdMillis;
+    private final int maxStatements;
+    private final boolean logCaptured;
+
+    private final BlockingQueue<CapturedSql> buffer;
+    private final Map<String, Stats> stats = new ConcurrentHashMap<>();
+    private final Map<String, String> normalized = new ConcurrentHashMap<>();
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+
+
+    public SqlCapture(@Value("${datajpa.sql-capture.sample-rate:0.01}") double sampleRate,
+            @Value("${datajpa.sql-capture.slow-threshold:100ms}") Duration slowThreshold,
+            @Value("${datajpa.sql-capture.buffer-size:1024}") int bufferSize,
+            @Value("${datajpa.sql-capture.max-statements:1000}") int maxStatements,
+            @Value("${datajpa.sql-capture.log:true}") boolean logCaptured) {
+        this.sampleRate = sampleRate;
+        this.slowThresholdMillis = slowThreshold.toMillis();
+        this.maxStatements = maxStatements;
+        this.logCaptured = logCaptured;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+
+        this.writer = new Thread(this::drain, "sql-capture-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        long elapsed = execInfo.getElapsedTime();
+        boolean slow = elapsed >= slowThresholdMillis;
+        boolean sampled = slow || (sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate);
+
+        for(QueryInfo queryInfo : queryInfoList) {
+            String sql = normalized(queryInfo.getQuery());
+
+            Stats stat = stats.get(sql);
+            if(stat == null && stats.size() < maxStatements) {
+                stat = stats.computeIfAbsent(sql, key -> new Stats());
+            }
+            if(stat != null) {
+                stat.record(elapsed);
+            }
+
+            if(sampled && !buffer.offer(new CapturedSql(sql, elapsed, slow, execInfo.isBatch()))) {
+                dropped.increment();
+            }
+        }
+    }
+
+
+    /**
+     * 최대 실행 시간이 긴 순서로 n 개.
+     */
+    public List<StatementSummary> top(int n) {
+        return stats.entrySet().stream().map(entry -> entry.getValue().summary(entry.getKey()))
+                .sorted(Comparator.comparingLong(StatementSummary::maxMillis).reversed()
+                        .thenComparing(Comparator.comparingLong(StatementSummary::totalMillis).reversed()))
+                .limit(n).toList();
+    }
+
+
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+
+    public void reset() {
+        stats.clear();
+        dropped.reset();
+    }
+
+
+    @Override
+    public void destroy() {
+        writer.interrupt();
+    }
+
+
+    /**
+     * 캐시가 maxStatements 의 두 배까지 차면 더 넣지 않고 매번 정규화한다. (리터럴을 직접 붙인 SQL 이 캐시를 채우지 않게)
+     */
+    private String normalized(String raw) {
+        String sql = normalized.get(raw);
+        if(sql != null) {
+            return sql;
+        }
+
+        sql = normalize(raw);
+        if(normalized.size() < maxStatements * 2) {
+            normalized.putIfAbsent(raw, sql);
+        }
+
+        return sql;
+    }
+
+
+    static String normalize(String sql) {
+        String normalized = STRING_LITERAL.matcher(sql).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = WHITESPACE.matcher(normalized).replaceAll(" ").trim();
+
+        return IN_LIST.matcher(normalized).replaceAll("in (...)");
+    }
+
+
+    private void drain() {
+        try {
+            while(!Thread.currentThread().isInterrupted()) {
+                CapturedSql captured = buffer.take();
+                if(!logCaptured) {
+                    continue;
+                }
+
+                if(captured.slow()) {
+                    log.warn("slow sql {} ms{} : {}", captured.elapsedMillis(), captured.batch() ? " (batch)" : "",
+                            captured.sql());
+                } else {
+                    log.info("sampled sql {} ms{} : {}", captured.elapsedMillis(), captured.batch() ? " (batch)" : "",
+                            captured.sql());
+                }
+            }
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    public record StatementSummary(String sql, long count, long totalMillis, long maxMillis, long avgMillis) {
+
+    }
+
+
+    private record CapturedSql(String sql, long elapsedMillis, boolean slow, boolean batch) {
+
+    }
+
+
+    private static final class Stats {
+
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalMillis = new LongAdder();
+        private final AtomicLong maxMillis = new AtomicLong();
+
+
+        void record(long elapsed) {
+            count.increment();
+            totalMillis.add(elapsed);
+            maxMillis.accumulateAndGet(elapsed, Math::max);
+        }
+
+
+        StatementSummary summary(String sql) {
+            long c = count.sum();
+            long total = totalMillis.sum();
+
+            return new StatementSummary(sql, c, total, maxMillis.get(), c == 0 ? 0 : total / c);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package study.datajpa.monitoring;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+/**
+ * /actuator/sqlcapture : 수집된 SQL 중 느린 순 top N 요약. DELETE 로 초기화.
+ */
+@Component
+@Endpoint(id = "sqlcapture")
+@RequiredArgsConstructor
+public class SqlCaptureEndpoint {
+
+    private static final int DEFAULT_TOP = 20;
+
+    private final SqlCapture sqlCapture;
+
+
+    @ReadOperation
+    public Map<String, Object> summary(@Nullable Integer top) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("dropped", sqlCapture.getDropped());
+        summary.put("statements", sqlCapture.top(top == null ? DEFAULT_TOP : top));
+
+        return summary;
+    }
+
+
+    @DeleteOperation
+    public void reset() {
+        sqlCapture.reset();
+    }
+}
@@ -0,0 +1,73 @@
+package study.datajpa.monitoring;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.boot.context.metrics.buffering.StartupTimeline;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.metrics.StartupStep;
+import org.springframework.stereotype.Component;
+
+/**
+ * 기동이 끝나면 단계별 소요 시간을 한 줄로 남긴다. main() 처럼 BufferingApplicationStartup 으로 띄운 경우에만 동작한다.
+ * 단계끼리 겹칠 수 있다. (entityManagerFactory 를 만들면서 dataSource 를 만들면 둘 다에 들어간다)
+ * 전체 타임라인은 /actuator/startup 에서 본다.
+ */
+@Slf4j
+@Component
+public class StartupTimingReport implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final String BEAN_INSTANTIATE = "spring.beans.instantiate";
+
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if(!(event.getApplicationContext().getApplicationStartup() instanceof BufferingApplicationStartup startup)) {
+            return;
+        }
+
+        Map<String, Duration> phases = phases(startup.getBufferedTimeline());
+        log.info("startup {} ms : {}", event.getTimeTaken().toMillis(), phases.entrySet().stream()
+                .map(phase -> phase.getKey() + " " + phase.getValue().toMillis() + " ms")
+                .collect(Collectors.joining(", ")));
+    }
+
+
+    public static Map<String, Duration> phases(StartupTimeline timeline) {
+        Map<String, Duration> phases = new LinkedHashMap<>();
+        phases.put("datasource", sum(timeline, bean("dataSource")));
+        phases.put("entityManagerFactory", sum(timeline, bean("&entityManagerFactory").or(bean("entityManagerFactory"))));
+        phases.put("repositories", sum(timeline, step -> step.getName().equals("spring.data.repository.init")));
+        phases.put("web", sum(timeline, step -> step.getName().equals("spring.boot.webserver.create")));
+        phases.put("refresh", sum(timeline, step -> step.getName().equals("spring.context.refresh")));
+
+        return phases;
+    }
+
+
+    private static Duration sum(StartupTimeline timeline, Predicate<StartupStep> filter) {
+        return timeline.getEvents().stream().filter(event -> filter.test(event.getStartupStep()))
+                .map(StartupTimeline.TimelineEvent::getDuration).reduce(Duration.ZERO, Duration::plus);
+    }
+
+
+    private static Predicate<StartupStep> bean(String beanName) {
+        return step -> step.getName().equals(BEAN_INSTANTIATE) && tag(step, "beanName").equals(beanName);
+    }
+
+
+    private static String tag(StartupStep step, String key) {
+        for(StartupStep.Tag tag : step.getTags()) {
+            if(tag.getKey().equals(key)) {
+                return tag.getValue();
+            }
+        }
+
+        return "";
+    }
+}
@@ -0,0 +1,77 @@
+package study.datajpa.monitoring;
+
+import java.time.Duration;
+import java.util.stream.Collectors;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+/**
+ * 가상 스레드 모드에서 carrier 스레드 고정(pinning)을 감시한다. (JFR jdk.VirtualThreadPinned 이벤트)
+ * synchronized 블록 안에서 JDBC I/O 를 기다리는 드라이버 / 커넥션 풀 / hibernate 코드가 주로 원인이다.
+ * 고정 시간은 jvm.threads.virtual.pinned 타이머로, 위치는 경고 로그(상위 스택 프레임)로 남긴다.
+ */
+@Slf4j
+@Component
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadPinningMonitor implements SmartLifecycle {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final int LOGGED_FRAMES = 8;
+
+    private final Duration threshold;
+    private final Timer pinned;
+    private RecordingStream stream;
+
+
+    public VirtualThreadPinningMonitor(MeterRegistry registry,
+            @Value("${datajpa.virtual-threads.pinned-threshold:20ms}") Duration threshold) {
+        this.threshold = threshold;
+        this.pinned = Timer.builder("jvm.threads.virtual.pinned")
+                .description("time virtual threads spent pinned to their carrier thread").register(registry);
+    }
+
+
+    @Override
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(threshold).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+    }
+
+
+    @Override
+    public void stop() {
+        if(stream != null) {
+            stream.close();
+            stream = null;
+        }
+    }
+
+
+    @Override
+    public boolean isRunning() {
+        return stream != null;
+    }
+
+
+    private void onPinned(RecordedEvent event) {
+        pinned.record(event.getDuration());
+
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        String frames = stackTrace == null ? "(no stack)" : stackTrace.getFrames().stream().limit(LOGGED_FRAMES)
+                .map(frame -> frame.getMethod().getType().getName() + "." + frame.getMethod().getName() + ":"
+                        + frame.getLineNumber()).collect(Collectors.joining(" <- "));
+
+        log.warn("virtual thread pinned {} ms : {}", event.getDuration().toMillis(), frames);
+    }
+}
@@ -0,0 +1,17 @@
+package study.datajpa.repository;
+
+import java.util.Optional;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import study.datajpa.entity.BulkJobCheckpoint;
+
+public interface BulkJobCheckpointRepository extends JpaRepository<BulkJobCheckpoint, String> {
+
+    // 청크 트랜잭션이 끝날 때까지 진행 위치를 잠근다. 같은 작업이 동시에 돌아도 한 구간은 한 번만 처리된다
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select c from BulkJobCheckpoint c where c.jobName = :jobName")
+    Optional<BulkJobCheckpoint> findForUpdate(@Param("jobName") String jobName);
+}
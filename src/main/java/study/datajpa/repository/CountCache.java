@@ -0,0 +1,60 @@
+package study.datajpa.repository;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 페이징 count 쿼리 결과 캐시. key 는 쿼리 + 파라미터, 엔티티 타입별로 나눠서 보관한다.
+ * 해당 엔티티에 쓰기(save, delete, 벌크 수정)가 일어나면 {@link #invalidate(Class)} 로 통째로 비운다.
+ */
+@Component
+public class CountCache {
+
+    private final Duration ttl;
+    private final int maxEntries;
+    private final Map<Class<?>, Map<String, Entry>> caches = new ConcurrentHashMap<>();
+
+
+    public CountCache(@Value("${datajpa.count-cache.ttl:30s}") Duration ttl,
+            @Value("${datajpa.count-cache.max-entries:1000}") int maxEntries) {
+        this.ttl = ttl;
+        this.maxEntries = maxEntries;
+    }
+
+
+    public long get(Class<?> domainType, String key, LongSupplier countQuery) {
+        Map<String, Entry> cache = caches.computeIfAbsent(domainType, type -> new ConcurrentHashMap<>());
+        long now = System.nanoTime();
+
+        Entry entry = cache.get(key);
+        if(entry != null && entry.expiresAt - now > 0) {
+            return entry.count;
+        }
+
+        long count = countQuery.getAsLong();
+
+        if(cache.size() >= maxEntries) {
+            cache.clear(); // 정교한 eviction 대신 단순하게 비운다
+        }
+        cache.put(key, new Entry(count, now + ttl.toNanos()));
+
+        return count;
+    }
+
+
+    public void invalidate(Class<?> domainType) {
+        Map<String, Entry> cache = caches.get(domainType);
+        if(cache != null) {
+            cache.clear();
+        }
+    }
+
+
+    private record Entry(long count, long expiresAt) {
+
+    }
+}
@@ -0,0 +1,62 @@
+package study.datajpa.repository;
+
+import java.lang.reflect.Method;
+import lombok.RequiredArgsConstructor;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.springframework.aop.framework.ProxyFactory;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.core.support.RepositoryProxyPostProcessor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * repository 의 쓰기 메서드(save*, delete*, @Modifying) 호출시 해당 엔티티의 {@link CountCache} 를 비운다.
+ * 커밋 전에 다른 트랜잭션이 count 를 다시 캐시할 수 있으므로 트랜잭션 완료 후 한번 더 비운다.
+ */
+@Component
+@RequiredArgsConstructor
+public class CountCacheInvalidator implements RepositoryProxyPostProcessor {
+
+    private final CountCache countCache;
+
+
+    @Override
+    public void postProcess(ProxyFactory factory, RepositoryInformation repositoryInformation) {
+        Class<?> domainType = repositoryInformation.getDomainType();
+
+        factory.addAdvice((MethodInterceptor) invocation -> {
+            Object result = invocation.proceed();
+
+            if(isWrite(invocation.getMethod())) {
+                invalidate(domainType);
+            }
+
+            return result;
+        });
+    }
+
+
+    private void invalidate(Class<?> domainType) {
+        countCache.invalidate(domainType);
+
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    countCache.invalidate(domainType);
+                }
+            });
+        }
+    }
+
+
+    private static boolean isWrite(Method method) {
+        String name = method.getName();
+
+        return name.startsWith("save") || name.startsWith("delete")
+                || AnnotatedElementUtils.hasAnnotation(method, Modifying.class);
+    }
+}
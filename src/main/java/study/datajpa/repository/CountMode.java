@@ -0,0 +1,22 @@
+package study.datajpa.repository;
+
+/**
+ * 페이징 조회시 count 쿼리 처리 방식.
+ */
+public enum CountMode {
+
+    /**
+     * 매번 count 쿼리 실행. (Page)
+     */
+    EXACT,
+
+    /**
+     * count 쿼리 결과를 {@link CountCache} 에 TTL 동안 캐시. (Page)
+     */
+    CACHED,
+
+    /**
+     * count 쿼리 없이 limit + 1 조회로 다음 페이지 여부만 확인. (Slice)
+     */
+    NONE
+}
@@ -0,0 +1,69 @@
+package study.datajpa.repository;
+
+import java.util.Iterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+import jakarta.persistence.EntityManager;
+
+/**
+ * 스트리밍 조회 결과를 다 쓴 엔티티부터 영속성 컨텍스트에서 뺀다.
+ * <p>
+ * 다음 엔티티를 꺼낼 때 이전 엔티티를 detach 하므로 소비하는 동안에는 현재 엔티티가 영속 상태다. (지연 로딩 가능)
+ * peek(em::detach) 는 소비하기 전에 detach 해서 지연 로딩이 LazyInitializationException 으로 실패한다.
+ * 마지막 엔티티는 스트림을 닫을 때 뺀다. 지연 로딩으로 읽은 연관 엔티티(팀 등)는 detach 하지 않는다.
+ */
+final class DetachingStream {
+
+    private DetachingStream() {
+    }
+
+
+    static <T> Stream<T> of(EntityManager em, Stream<T> results) {
+        Iterator<T> source = results.iterator();
+        DetachingIterator<T> iterator = new DetachingIterator<>(em, source);
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator,
+                        Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .onClose(iterator::detachLast)
+                .onClose(results::close);
+    }
+
+
+    private static final class DetachingIterator<T> implements Iterator<T> {
+
+        private final EntityManager em;
+        private final Iterator<T> source;
+        private T last;
+
+
+        DetachingIterator(EntityManager em, Iterator<T> source) {
+            this.em = em;
+            this.source = source;
+        }
+
+
+        @Override
+        public boolean hasNext() {
+            return source.hasNext();
+        }
+
+
+        @Override
+        public T next() {
+            detachLast();
+            last = source.next();
+
+            return last;
+        }
+
+
+        void detachLast() {
+            if(last != null && em.contains(last)) {
+                em.detach(last);
+            }
+            last = null;
+        }
+    }
+}
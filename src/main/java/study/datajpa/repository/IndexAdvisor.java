@@ -0,0 +1,506 @@
+package study.datajpa.repository;
+
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import javax.sql.DataSource;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.metamodel.EntityType;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.metamodel.mapping.AttributeMapping;
+import org.hibernate.metamodel.mapping.EntityValuedModelPart;
+import org.hibernate.metamodel.mapping.ModelPart;
+import org.hibernate.metamodel.mapping.PluralAttributeMapping;
+import org.hibernate.persister.entity.AbstractEntityPersister;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.StringUtils;
+
+/**
+ * repository 쿼리의 조건(where) / 정렬(order by) 컬럼 중 인덱스를 못 타는 것을 찾는다. 기동이 끝나면 경고 로그로 남긴다.
+ * <ul>
+ *     <li>파생 쿼리 : 메서드 이름을 PartTree 로 파싱</li>
+ *     <li>@Query / countQuery (native 제외), named query, {@link WarmupQueries} 의 JPQL</li>
+ * </ul>
+ * 인덱스는 JDBC 메타데이터(DatabaseMetaData.getIndexInfo)로 읽고, 선언된 컬럼만 본다. (InnoDB 처럼 숨은 pk 를 기대하지 않는다)
+ * <ul>
+ *     <li>조건 컬럼 : 조건 컬럼으로만 이루어진 인덱스 앞부분에 있어야 한다</li>
+ *     <li>정렬 컬럼 : 인덱스에서 조건 컬럼으로 된 앞부분(의 일부)을 건너뛴 다음 컬럼들이 정렬 순서와 같아야 한다</li>
+ * </ul>
+ * 일반적인 B-tree 옵티마이저 기준이다. JPQL 은 정규식으로 훑는 정도라서 서브쿼리, 연산자(범위 조건 뒤 컬럼), asc / desc 섞임은 보지 않는다.
+ * H2 는 조건으로 고정된 앞 컬럼을 건너뛴 정렬이나 for update 쿼리의 정렬은 인덱스로 하지 않으니 실행 계획(explain)도 같이 본다.
+ * Pageable / Sort 파라미터로 정렬을 받는 쿼리는 dynamicSort 로 표시하고 인덱스로 정렬할 수 있는 컬럼을 알려준다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "datajpa.index-advisor.enabled", matchIfMissing = true)
+public class IndexAdvisor implements ApplicationListener<ApplicationReadyEvent> {
+
+    private static final String IDENTIFIER = "[A-Za-z_]\\w*";
+    private static final Pattern ROOT = Pattern.compile(
+            "\\b(?:from|update(?:\\s+versioned)?)\\s+(" + IDENTIFIER + ")(?:\\s+(?:as\\s+)?(" + IDENTIFIER + "))?",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern JOIN = Pattern.compile(
+            "\\bjoin\\s+(?:fetch\\s+)?(" + IDENTIFIER + ")\\.([\\w.]+)(?:\\s+(?:as\\s+)?(" + IDENTIFIER + "))?",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern PATH = Pattern.compile("(?<![\\w.:])(" + IDENTIFIER + ")\\.(" + IDENTIFIER + "(?:\\."
+            + IDENTIFIER + ")*)");
+    private static final Pattern WHERE = Pattern.compile("\\bwhere\\b", Pattern.CASE_INSENSITIVE);
+    private static final Pattern WHERE_END = Pattern.compile("\\b(?:order\\s+by|group\\s+by|having)\\b",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern ORDER_BY = Pattern.compile("\\border\\s+by\\b", Pattern.CASE_INSENSITIVE);
+    private static final Set<String> KEYWORDS = Set.of("where", "join", "left", "right", "inner", "outer", "cross",
+            "fetch", "on", "with", "set", "order", "group", "having");
+
+    private final EntityManagerFactory emf;
+    private final DataSource dataSource;
+    private final ListableBeanFactory beanFactory;
+    private final ObjectProvider<WarmupQueries> warmupQueries;
+
+
+    // emf 는 기동 시 백그라운드에서 만들어질 수 있으므로 (deferred) 생성자에서 건드리지 않는다
+    public IndexAdvisor(EntityManagerFactory emf, DataSource dataSource, ListableBeanFactory beanFactory,
+            ObjectProvider<WarmupQueries> warmupQueries) {
+        this.emf = emf;
+        this.dataSource = dataSource;
+        this.beanFactory = beanFactory;
+        this.warmupQueries = warmupQueries;
+    }
+
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        List<IndexAdvice> advices = adviseRepositories();
+        int flagged = 0;
+
+        for(IndexAdvice advice : advices) {
+            if(advice.hasIssues()) {
+                flagged++;
+                log.warn("index advisor : {}", advice);
+            }
+        }
+
+        log.info("index advisor : {} queries, {} flagged", advices.size(), flagged);
+    }
+
+
+    /**
+     * repository 의 모든 쿼리. 같은 JPQL 은 처음 찾은 곳 기준으로 한번만 본다.
+     */
+    public List<IndexAdvice> adviseRepositories() {
+        Indexes indexes = loadIndexes();
+        Map<String, IndexAdvice> advices = new LinkedHashMap<>();
+        SessionFactoryImplementor sessionFactory = emf.unwrap(SessionFactoryImplementor.class);
+        var namedQueries = sessionFactory.getQueryEngine().getNamedObjectRepository();
+
+        Repositories repositories = new Repositories(beanFactory);
+        for(Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRepositoryInformationFor(domainType).orElseThrow();
+            String repository = information.getRepositoryInterface().getSimpleName();
+            String entityName = emf.getMetamodel().entity(domainType).getName();
+
+            for(Method method : information.getQueryMethods()) {
+                // 커스텀 구현(MemberRepositoryCustomImpl) 메서드는 이름이 파생 쿼리 같아도 JPQL 은 WarmupQueries 쪽에서 본다
+                if(information.isCustomMethod(method)) {
+                    continue;
+                }
+
+                String source = repository + "." + method.getName();
+                boolean dynamicSort = Arrays.stream(method.getParameterTypes())
+                        .anyMatch(type -> Pageable.class.isAssignableFrom(type) || Sort.class.isAssignableFrom(type));
+                Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+
+                if(query != null) {
+                    if(!query.nativeQuery()) {
+                        advices.putIfAbsent(query.value(), advise(source, query.value(), dynamicSort, indexes));
+                        if(StringUtils.hasText(query.countQuery())) {
+                            advices.putIfAbsent(query.countQuery(),
+                                    advise(source + " (count)", query.countQuery(), false, indexes));
+                        }
+                    }
+                } else if(namedQueries.getSqmQueryMemento(entityName + "." + method.getName()) == null) {
+                    advices.putIfAbsent(source, adviseDerived(source, method, domainType, dynamicSort, indexes));
+                }
+            }
+        }
+
+        namedQueries.visitSqmQueryMementos(memento -> advices.putIfAbsent(memento.getHqlString(),
+                advise("@NamedQuery " + memento.getRegistrationName(), memento.getHqlString(), false, indexes)));
+
+        warmupQueries.orderedStream().forEach(source -> {
+            String name = ClassUtils.getUserClass(source).getSimpleName();
+            source.warmupQueries().forEach(query -> advices.putIfAbsent(query, advise(name, query, false, indexes)));
+        });
+
+        return new ArrayList<>(advices.values());
+    }
+
+
+    /**
+     * JPQL 하나를 바로 확인한다. (새 쿼리를 넣기 전에)
+     */
+    public IndexAdvice advise(String jpql) {
+        return advise("jpql", jpql, false, loadIndexes());
+    }
+
+
+    private IndexAdvice advise(String source, String jpql, boolean dynamicSort, Indexes indexes) {
+        String query = jpql.replaceAll("'[^']*'", "''").replaceAll("\\s+", " ");
+        Map<String, AbstractEntityPersister> aliases = aliases(query);
+        List<String> filters = new ArrayList<>();
+        List<String> sorts = new ArrayList<>();
+
+        Matcher where = WHERE.matcher(query);
+        if(where.find()) {
+            Matcher end = WHERE_END.matcher(query);
+            String clause = query.substring(where.end(), end.find(where.end()) ? end.start() : query.length());
+            Matcher path = PATH.matcher(clause);
+            while(path.find()) {
+                AbstractEntityPersister persister = aliases.get(path.group(1));
+                if(persister != null) {
+                    filters.addAll(columns(persister, path.group(2).split("\\.")));
+                }
+            }
+        }
+
+        Matcher orderBy = ORDER_BY.matcher(query);
+        if(orderBy.find()) {
+            for(String item : query.substring(orderBy.end()).split(",")) {
+                Matcher path = PATH.matcher(item);
+                if(path.find() && aliases.containsKey(path.group(1))) {
+                    sorts.addAll(columns(aliases.get(path.group(1)), path.group(2).split("\\.")));
+                }
+            }
+        }
+
+        return indexes.check(source, jpql.trim(), filters, sorts, dynamicSort);
+    }
+
+
+    private IndexAdvice adviseDerived(String source, Method method, Class<?> domainType, boolean dynamicSort,
+            Indexes indexes) {
+        AbstractEntityPersister persister = persister(domainType);
+        List<String> filters = new ArrayList<>();
+        List<String> sorts = new ArrayList<>();
+
+        try {
+            PartTree tree = new PartTree(method.getName(), domainType);
+            for(Part part : tree.getParts()) {
+                filters.addAll(columns(persister, part.getProperty().toDotPath().split("\\.")));
+            }
+            for(Sort.Order order : tree.getSort()) {
+                sorts.addAll(columns(persister, order.getProperty().split("\\.")));
+            }
+        } catch(RuntimeException e) {
+            log.debug("index advisor : {} 는 파생 쿼리로 파싱할 수 없음", source, e);
+        }
+
+        return indexes.check(source, method.getName(), filters, sorts, dynamicSort);
+    }
+
+
+    /**
+     * from / update 의 엔티티 별칭과 join 별칭. join 은 앞에서 나온 별칭의 연관관계를 따라간다.
+     */
+    private Map<String, AbstractEntityPersister> aliases(String query) {
+        Map<String, AbstractEntityPersister> aliases = new HashMap<>();
+
+        Matcher root = ROOT.matcher(query);
+        while(root.find()) {
+            String alias = root.group(2);
+            AbstractEntityPersister persister = persister(root.group(1));
+            if(persister != null && alias != null && !KEYWORDS.contains(alias.toLowerCase(Locale.ROOT))) {
+                aliases.put(alias, persister);
+            }
+        }
+
+        Matcher join = JOIN.matcher(query);
+        while(join.find()) {
+            String alias = join.group(3);
+            AbstractEntityPersister owner = aliases.get(join.group(1));
+            if(owner != null && alias != null && !KEYWORDS.contains(alias.toLowerCase(Locale.ROOT))) {
+                AbstractEntityPersister target = owner;
+                for(String property : join.group(2).split("\\.")) {
+                    target = target == null ? null : associated(target.findAttributeMapping(property));
+                }
+                if(target != null) {
+                    aliases.put(alias, target);
+                }
+            }
+        }
+
+        return aliases;
+    }
+
+
+    /**
+     * 경로(team.name, team.id 등)가 가리키는 "테이블.컬럼". 연관관계의 id 는 fk 컬럼으로 본다. 모르는 경로는 빈 목록.
+     */
+    private List<String> columns(AbstractEntityPersister persister, String[] path) {
+        try {
+            for(int i = 0; i < path.length; i++) {
+                String property = path[i];
+                boolean last = i == path.length - 1;
+
+                if(property.equals(persister.getIdentifierPropertyName())) {
+                    return last ? qualify(persister.getIdentifierTableName(), persister.getIdentifierColumnNames())
+                            : List.of();
+                }
+
+                AttributeMapping attribute = persister.findAttributeMapping(property);
+                if(attribute == null) {
+                    return List.of();
+                }
+                if(last) {
+                    return attribute.isPluralAttributeMapping() ? List.of()
+                            : qualify(persister.getPropertyTableName(property), persister.getPropertyColumnNames(property));
+                }
+                if(attribute.isEmbeddedAttributeMapping()) {
+                    String dotted = String.join(".", Arrays.copyOfRange(path, i, path.length));
+                    return qualify(persister.getPropertyTableName(property), persister.getPropertyColumnNames(dotted));
+                }
+
+                AbstractEntityPersister target = associated(attribute);
+                if(target == null) {
+                    return List.of();
+                }
+                if(i + 1 == path.length - 1 && path[i + 1].equals(target.getIdentifierPropertyName())
+                        && !attribute.isPluralAttributeMapping()) {
+                    return qualify(persister.getPropertyTableName(property), persister.getPropertyColumnNames(property));
+                }
+                persister = target;
+            }
+        } catch(RuntimeException e) {
+            log.debug("index advisor : 경로를 컬럼으로 바꿀 수 없음 {}", String.join(".", path), e);
+        }
+
+        return List.of();
+    }
+
+
+    private static AbstractEntityPersister associated(AttributeMapping attribute) {
+        // 연관 엔티티(ManyToOne 등) 또는 엔티티 컬렉션의 원소
+        ModelPart part = attribute instanceof PluralAttributeMapping plural ? plural.getElementDescriptor() : attribute;
+        if(part instanceof EntityValuedModelPart entity) {
+            return (AbstractEntityPersister) entity.getEntityMappingType().getEntityPersister();
+        }
+
+        return null;
+    }
+
+
+    private AbstractEntityPersister persister(String jpqlEntityName) {
+        for(EntityType<?> entity : emf.getMetamodel().getEntities()) {
+            if(entity.getName().equals(jpqlEntityName) || entity.getJavaType().getName().equals(jpqlEntityName)) {
+                return persister(entity.getJavaType());
+            }
+        }
+
+        return null;
+    }
+
+
+    private AbstractEntityPersister persister(Class<?> entityClass) {
+        return (AbstractEntityPersister) emf.unwrap(SessionFactoryImplementor.class).getMappingMetamodel()
+                .getEntityDescriptor(entityClass);
+    }
+
+
+    private static List<String> qualify(String table, String[] columns) {
+        String name = normalize(table);
+        return Arrays.stream(columns).map(column -> name + "." + normalize(column)).toList();
+    }
+
+
+    private static String normalize(String name) {
+        String unquoted = name.replace("\"", "").replace("`", "");
+        return unquoted.substring(unquoted.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+
+    /**
+     * 엔티티 테이블의 인덱스 (컬럼 순서대로)
+     */
+    private Indexes loadIndexes() {
+        Set<String> tables = new LinkedHashSet<>();
+        emf.unwrap(SessionFactoryImplementor.class).getMappingMetamodel().forEachEntityDescriptor(
+                descriptor -> tables.addAll(Arrays.asList(((AbstractEntityPersister) descriptor).getTableNames())));
+
+        Map<String, List<List<String>>> indexes = new HashMap<>();
+        try(Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for(String table : tables) {
+                String stored = normalize(table);
+                if(metaData.storesUpperCaseIdentifiers()) {
+                    stored = stored.toUpperCase(Locale.ROOT);
+                }
+                indexes.put(normalize(table), indexes(metaData, connection.getCatalog(), connection.getSchema(), stored));
+            }
+        } catch(SQLException e) {
+            throw new DataAccessResourceFailureException("index advisor : 인덱스 메타데이터 조회 실패", e);
+        }
+
+        return new Indexes(indexes);
+    }
+
+
+    private static List<List<String>> indexes(DatabaseMetaData metaData, String catalog, String schema, String table)
+            throws SQLException {
+        Map<String, Map<Short, String>> columnsByIndex = new LinkedHashMap<>();
+        try(ResultSet rs = metaData.getIndexInfo(catalog, schema, table, false, true)) {
+            while(rs.next()) {
+                if(rs.getShort("TYPE") != DatabaseMetaData.tableIndexStatistic && rs.getString("COLUMN_NAME") != null) {
+                    columnsByIndex.computeIfAbsent(rs.getString("INDEX_NAME"), name -> new TreeMap<>())
+                            .put(rs.getShort("ORDINAL_POSITION"), normalize(rs.getString("COLUMN_NAME")));
+                }
+            }
+        }
+
+        return columnsByIndex.values().stream().map(columns -> List.copyOf(columns.values())).toList();
+    }
+
+
+    /**
+     * 테이블 이름 -> 인덱스 컬럼 목록
+     */
+    private record Indexes(Map<String, List<List<String>>> byTable) {
+
+        IndexAdvice check(String source, String query, List<String> filters, List<String> sorts, boolean dynamicSort) {
+            Map<String, Set<String>> filtered = new LinkedHashMap<>();
+            for(String column : filters) {
+                filtered.computeIfAbsent(table(column), table -> new LinkedHashSet<>()).add(name(column));
+            }
+
+            List<String> unindexedFilters = new ArrayList<>();
+            filtered.forEach((table, columns) -> {
+                for(String column : columns) {
+                    boolean covered = byTable.getOrDefault(table, List.of()).stream()
+                            .anyMatch(index -> filteredPrefix(index, columns).contains(column));
+                    if(!covered) {
+                        unindexedFilters.add(table + "." + column);
+                    }
+                }
+            });
+
+            List<String> unindexedSorts = sorts.isEmpty() || sortCovered(sorts, filtered) ? List.of() : sorts;
+
+            List<String> sortable = new ArrayList<>();
+            if(dynamicSort && !filtered.isEmpty()) {
+                String table = filtered.keySet().iterator().next();
+                for(List<String> index : byTable.getOrDefault(table, List.of())) {
+                    int skip = filteredPrefix(index, filtered.get(table)).size();
+                    if(skip > 0 && skip < index.size() && !sortable.contains(table + "." + index.get(skip))) {
+                        sortable.add(table + "." + index.get(skip));
+                    }
+                }
+            }
+
+            return new IndexAdvice(source, query, unindexedFilters, unindexedSorts, dynamicSort, sortable);
+        }
+
+
+        private boolean sortCovered(List<String> sorts, Map<String, Set<String>> filtered) {
+            String table = table(sorts.get(0));
+            if(sorts.stream().anyMatch(column -> !table(column).equals(table))) {
+                return false;
+            }
+
+            List<String> sortColumns = sorts.stream().map(Indexes::name).toList();
+            Set<String> columns = filtered.getOrDefault(table, Set.of());
+
+            // keyset 조건(username < :username ...)처럼 정렬 컬럼이 조건에도 있으면 조건 앞부분 중간부터 정렬이 시작된다
+            return byTable.getOrDefault(table, List.of()).stream().anyMatch(index -> {
+                int prefix = filteredPrefix(index, columns).size();
+                for(int skip = 0; skip <= prefix && index.size() - skip >= sortColumns.size(); skip++) {
+                    if(index.subList(skip, skip + sortColumns.size()).equals(sortColumns)) {
+                        return true;
+                    }
+                }
+                return false;
+            });
+        }
+
+
+        private static List<String> filteredPrefix(List<String> index, Set<String> columns) {
+            int length = 0;
+            while(length < index.size() && columns.contains(index.get(length))) {
+                length++;
+            }
+
+            return index.subList(0, length);
+        }
+
+
+        private static String table(String column) {
+            return column.substring(0, column.indexOf('.'));
+        }
+
+
+        private static String name(String column) {
+            return column.substring(column.indexOf('.') + 1);
+        }
+    }
+
+
+    /**
+     * 쿼리 하나의 결과. 컬럼은 "테이블.컬럼"
+     *
+     * @param unindexedFilters 인덱스로 찾을 수 없는 조건 컬럼
+     * @param unindexedSorts   인덱스 순서로 읽을 수 없는 정렬 (정렬 전체)
+     * @param dynamicSort      Pageable / Sort 로 정렬을 받는다. 요청 정렬은 확인할 수 없다
+     * @param sortableColumns  dynamicSort 일 때 조건 뒤에 이어서 인덱스로 정렬할 수 있는 컬럼
+     */
+    public record IndexAdvice(String source, String query, List<String> unindexedFilters, List<String> unindexedSorts,
+                              boolean dynamicSort, List<String> sortableColumns) {
+
+        public boolean hasIssues() {
+            return !unindexedFilters.isEmpty() || !unindexedSorts.isEmpty() || dynamicSort;
+        }
+
+
+        @Override
+        public String toString() {
+            StringBuilder sb = new StringBuilder(source).append(" [").append(query).append("]");
+            if(!unindexedFilters.isEmpty()) {
+                sb.append(" 인덱스 없는 조건 ").append(unindexedFilters);
+            }
+            if(!unindexedSorts.isEmpty()) {
+                sb.append(" 인덱스 없는 정렬 ").append(unindexedSorts);
+            }
+            if(dynamicSort) {
+                sb.append(" Pageable/Sort 정렬은 인덱스 컬럼으로만 ").append(sortableColumns);
+            }
+
+            return sb.toString();
+        }
+    }
+}
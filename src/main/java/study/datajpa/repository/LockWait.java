@@ -0,0 +1,65 @@
+package study.datajpa.repository;
+
+import java.time.Duration;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.TypedQuery;
+import org.hibernate.LockMode;
+import org.hibernate.LockOptions;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.query.Query;
+
+/**
+ * 비관적 락(PESSIMISTIC_WRITE)을 바로 못 잡았을 때 동작. SQL 의 for update 뒤에 붙는다.
+ * nowait / wait 는 jakarta.persistence.lock.timeout 힌트, skip locked 는 hibernate LockMode.UPGRADE_SKIPLOCKED 로 넘긴다.
+ * <ul>
+ *     <li>{@link #NOWAIT} : 기다리지 않고 실패 (PessimisticLockingFailureException)</li>
+ *     <li>{@link #SKIP_LOCKED} : 다른 트랜잭션이 잡은 row 는 건너뛰고 나머지만 가져온다</li>
+ *     <li>{@link #timeout(Duration)} : 그 시간만큼만 기다리고 실패. SQL 의 wait 는 초 단위라 초로 올린다 (hibernate 는 버림)</li>
+ * </ul>
+ */
+public final class LockWait {
+
+    public static final LockWait NOWAIT = new LockWait(LockOptions.NO_WAIT, false);
+    public static final LockWait SKIP_LOCKED = new LockWait(LockOptions.WAIT_FOREVER, true);
+
+    private final int timeoutMillis;
+    private final boolean skipLocked;
+
+
+    private LockWait(int timeoutMillis, boolean skipLocked) {
+        this.timeoutMillis = timeoutMillis;
+        this.skipLocked = skipLocked;
+    }
+
+
+    public static LockWait timeout(Duration timeout) {
+        if(timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("lock timeout must be positive : " + timeout);
+        }
+
+        long seconds = timeout.toSeconds() + (timeout.toNanosPart() > 0 ? 1 : 0);
+
+        return new LockWait(Math.toIntExact(seconds * 1000), false);
+    }
+
+
+    <T> TypedQuery<T> apply(TypedQuery<T> query) {
+        if(skipLocked) {
+            query.unwrap(Query.class).setHibernateLockMode(LockMode.UPGRADE_SKIPLOCKED);
+            return query;
+        }
+
+        return query.setLockMode(LockModeType.PESSIMISTIC_WRITE)
+                .setHint(AvailableSettings.JAKARTA_LOCK_TIMEOUT, timeoutMillis);
+    }
+
+
+    @Override
+    public String toString() {
+        if(skipLocked) {
+            return "SKIP_LOCKED";
+        }
+
+        return timeoutMillis == LockOptions.NO_WAIT ? "NOWAIT" : "WAIT " + timeoutMillis + "ms";
+    }
+}
@@ -0,0 +1,50 @@
+package study.datajpa.repository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.springframework.data.domain.ScrollPosition;
+import study.datajpa.entity.Member;
+
+/**
+ * (username, id) keyset 을 클라이언트에게 넘기는 불투명(opaque) 토큰으로 변환한다.
+ * 토큰 내용은 "id:username" 을 base64url 로 인코딩한 것. 클라이언트는 내용에 의존하면 안된다.
+ */
+public final class MemberCursor {
+
+    private MemberCursor() {
+    }
+
+
+    public static String encode(Member last) {
+        String raw = last.getId() + ":" + last.getUsername();
+
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+
+    public static ScrollPosition decode(String cursor) {
+        if(cursor == null || cursor.isBlank()) {
+            return ScrollPosition.keyset();
+        }
+
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch(IllegalArgumentException e) {
+            throw new IllegalArgumentException("잘못된 cursor 입니다: " + cursor, e);
+        }
+
+        int idx = raw.indexOf(':');
+        if(idx < 0) {
+            throw new IllegalArgumentException("잘못된 cursor 입니다: " + cursor);
+        }
+
+        Map<String, Object> keys = new LinkedHashMap<>();
+        keys.put("username", raw.substring(idx + 1));
+        keys.put("id", Long.valueOf(raw.substring(0, idx)));
+
+        return ScrollPosition.forward(keys);
+    }
+}
@@ -0,0 +1,10 @@
+package study.datajpa.repository;
+
+/**
+ * {@link MemberRepositoryCustom#exportMembers(MemberExportHandler)} 가 커서에서 읽은 회원 한 행. 팀이 없으면 teamName 은 null.
+ */
+@FunctionalInterface
+public interface MemberExportHandler {
+
+    void row(long id, String username, int age, String teamName);
+}
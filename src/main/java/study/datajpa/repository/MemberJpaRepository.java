@@ -3,18 +3,42 @@ package study.datajpa.repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Member;
 
 @Repository
 @RequiredArgsConstructor
-public class MemberJpaRepository {
+public class MemberJpaRepository implements WarmupQueries {
+
+    static final int STREAM_FETCH_SIZE = 1000;
+
+    private static final String FIND_ALL = "select m from Member m";
+    private static final String COUNT = "select count(m) from Member m";
+    private static final String FIND_BY_USERNAME_AND_AGE_GREATER_THAN =
+            "select m from Member m where m.username = :username and m.age >= :age";
+    private static final String FIND_BY_PAGE = "select m from Member m where m.age = :age order by m.username desc";
+    private static final String FIND_FIRST_PAGE_AFTER =
+            "select m from Member m where m.age = :age order by m.username desc, m.id desc";
+    private static final String FIND_BY_PAGE_AFTER = "select m from Member m where m.age = :age"
+            + " and (m.username < :username or (m.username = :username and m.id < :id))"
+            + " order by m.username desc, m.id desc";
+    private static final String TOTAL_COUNT = "select count(m) from Member m where m.age = :age";
+    private static final String BULK_AGE_PLUS = "update versioned Member m set m.age = m.age + 1 where m.age >= :age";
 
     private final EntityManager em;
 
 
+    @Override
+    public List<String> warmupQueries() {
+        return List.of(FIND_ALL, COUNT, FIND_BY_USERNAME_AND_AGE_GREATER_THAN, FIND_BY_PAGE, FIND_FIRST_PAGE_AFTER,
+                FIND_BY_PAGE_AFTER, TOTAL_COUNT, BULK_AGE_PLUS);
+    }
+
+
     public Member save(Member member) {
         em.persist(member);
 
@@ -33,7 +57,16 @@ public class MemberJpaRepository {
 
 
     public List<Member> findAll() {
-        return em.createQuery("select m from Member m", Member.class).getResultList();
+        return em.createQuery(FIND_ALL, Member.class).getResultList();
+    }
+
+
+    /**
+     * findAll 의 스트리밍 버전. 트랜잭션 안에서 try-with-resources 로 사용한다.
+     */
+    public Stream<Member> streamAll() {
+        return DetachingStream.of(em, em.createQuery(FIND_ALL, Member.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, STREAM_FETCH_SIZE).getResultStream());
     }
 
 
@@ -45,30 +78,45 @@ public class MemberJpaRepository {
 
 
     public long count() {
-        return em.createQuery("select count(m) from Member m", Long.class).getSingleResult();
+        return em.createQuery(COUNT, Long.class).getSingleResult();
     }
 
 
     public List<Member> findByUserNameAndAgeGreaterThan(String username, int age) {
-        return em.createQuery("select m from Member m where m.username = :username and m.age >= :age", Member.class)
+        return em.createQuery(FIND_BY_USERNAME_AND_AGE_GREATER_THAN, Member.class)
                 .setParameter("username", username).setParameter("age", age).getResultList();
     }
 
 
     public List<Member> findByPage(int age, int offset, int limit) {
-        return em.createQuery("select m from Member m where m.age = :age order by m.username desc", Member.class)
+        return em.createQuery(FIND_BY_PAGE, Member.class)
                 .setParameter("age", age).setFirstResult(offset).setMaxResults(limit).getResultList();
     }
 
 
+    /**
+     * findByPage 의 keyset 버전. 이전 페이지 마지막 (username, id) 다음부터 limit 만큼 조회한다.
+     * 첫 페이지는 lastUsername 을 null 로 넘긴다.
+     */
+    public List<Member> findByPageAfter(int age, String lastUsername, Long lastId, int limit) {
+        if(lastUsername == null) {
+            return em.createQuery(FIND_FIRST_PAGE_AFTER, Member.class).setParameter("age", age).setMaxResults(limit).getResultList();
+        }
+
+        return em.createQuery(FIND_BY_PAGE_AFTER, Member.class).setParameter("age", age)
+                .setParameter("username", lastUsername).setParameter("id", lastId).setMaxResults(limit)
+                .getResultList();
+    }
+
+
     public long totalCount(int age) {
-        return em.createQuery("select count(m) from Member m where m.age = :age", Long.class).setParameter("age", age)
+        return em.createQuery(TOTAL_COUNT, Long.class).setParameter("age", age)
                 .getSingleResult();
     }
 
 
     public int bulkAgePlus(int age) {
-        return em.createQuery("update Member m set m.age = m.age + 1 where m.age >= :age").setParameter("age", age)
+        return em.createQuery(BULK_AGE_PLUS).setParameter("age", age)
                 .executeUpdate();
     }
 }
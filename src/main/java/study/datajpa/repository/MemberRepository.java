@@ -1,10 +1,18 @@
 package study.datajpa.repository;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import jakarta.persistence.LockModeType;
 import jakarta.persistence.QueryHint;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Window;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Lock;
@@ -12,17 +20,25 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.config.AsyncConfig;
 import study.datajpa.dto.MemberDto;
 import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
 
 
+// 조회 메서드는 읽기 전용 트랜잭션 (읽기/쓰기 분리 시 replica). 쓰기 메서드는 @Transactional 로 덮는다
 @Repository
+@Transactional(readOnly = true)
 public interface MemberRepository extends JpaRepository<Member, Long>, MemberRepositoryCustom {
 
     List<Member> findByUsernameAndAgeGreaterThan(String username, int age);
 
     //@Query(name = "Member.findByUsername") // 생략가능
+    // 쿼리 캐시. 2차 캐시를 켠 경우에만 동작하고, member 테이블이 수정되면 자동으로 무효화된다.
+    @QueryHints(value = @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
     List<Member> findByUsername(@Param("username") String username);
 
     // 런타임 시점에 파싱하면서 오류가 있는지 체크해줌
@@ -35,21 +51,54 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
     List<MemberDto> findMemberDto();
 
-    @Query("select m from Member m where m.username in :names")
-    List<Member> findByNames(@Param("names") List<String> names);
+    // 리포트성 조회는 별도 실행기에서 비동기로. 커넥션 예산은 AsyncConfig 참고
+    @Async(AsyncConfig.REPOSITORY_EXECUTOR)
+    @Query("select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m join m.team t")
+    CompletableFuture<List<MemberDto>> findMemberDtoAsync();
+
+    @Async(AsyncConfig.REPOSITORY_EXECUTOR)
+    @Query(value = "select new study.datajpa.dto.MemberDto(m.id, m.username, t.name) from Member m left join m.team t"
+            + " where m.age = :age", countQuery = "select count(m) from Member m where m.age = :age")
+    CompletableFuture<Page<MemberDto>> findMemberDtoAsyncByAge(@Param("age") int age, Pageable pageable);
 
     //Page<Member> findByAge(int age, Pageable pageable);
 
     //Slice<Member> findByAge(int age, Pageable pageable);
 
-    @Query(value = "select m from Member m left join m.team t", countQuery = "select count(m) from Member m")
+    @Query(value = "select m from Member m left join m.team t where m.age = :age",
+            countQuery = "select count(m) from Member m where m.age = :age")
         //@Query(value = "select m from Member m")
     Page<Member> findByAge(int age, Pageable pageable);
 
+    // keyset(seek) 페이징 : offset 없이 마지막 키 다음부터 조회하므로 N 페이지도 1 페이지와 비용이 같다.
+    Window<Member> findByAgeOrderByIdAsc(int age, ScrollPosition position, Limit limit);
+
+    Window<Member> findAllByOrderByUsernameAscIdAsc(ScrollPosition position, Limit limit);
+
+    // 벌크 수정은 update versioned 로 @Version 도 올린다. 먼저 읽어 둔 엔티티가 벌크 결과를 덮어쓰지 못하고 낙관적 락 충돌이 난다.
+    @Transactional
     @Modifying(clearAutomatically = true)
-    @Query("update Member m set m.age = m.age + 1 where m.age >= :age")
+    @Query("update versioned Member m set m.age = m.age + 1 where m.age >= :age")
     int bulkAgePlus(@Param("age") int age);
 
+    // MemberBulkUpdateService 가 pk 구간 단위로 나눠서 호출하는 bulkAgePlus
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update versioned Member m set m.age = m.age + 1 where m.age >= :age and m.id > :fromId and m.id <= :toId")
+    int bulkAgePlusInRange(@Param("age") int age, @Param("fromId") long fromId, @Param("toId") long toId);
+
+    @Query("select coalesce(min(m.id), 0) from Member m")
+    long findMinId();
+
+    @Query("select coalesce(max(m.id), 0) from Member m")
+    long findMaxId();
+
+    // 회원 여러명을 한번에 팀 이동. team.members 컬렉션을 로딩하지 않고 update 한번으로 처리한다.
+    @Transactional
+    @Modifying(clearAutomatically = true)
+    @Query("update versioned Member m set m.team = :team where m.id in :memberIds")
+    int bulkChangeTeam(@Param("memberIds") Collection<Long> memberIds, @Param("team") Team team);
+
     @Query("select m from Member m left join fetch m.team")
     List<Member> findMemberFetchJoin();
 
@@ -67,8 +116,33 @@ public interface MemberRepository extends JpaRepository<Member, Long>, MemberRep
     @QueryHints(value = @QueryHint(name = "org.hibernate.readOnly", value = "true"))
     Member findReadOnlyByUsername(String username);
 
+    // 락은 primary 에서 잡아야 하므로 읽기 전용 트랜잭션이 아니다. 무한정 기다리지 않게 락 대기는 3초까지
+    // 대기 방식을 바꾸려면 findMemberLockByUsername(username, LockWait)
+    @Transactional
     @Lock(LockModeType.PESSIMISTIC_READ)
+    @QueryHints(@QueryHint(name = AvailableSettings.JAKARTA_LOCK_TIMEOUT, value = "3000"))
     List<Member> findMemberLockByUsername(String username);
 
+    // 낙관적 락 : 커밋 때 version 이 그대로인지 확인한다. 바꾸지 않고 읽기만 한 엔티티도 검사 대상
+    @Transactional
+    @Lock(LockModeType.OPTIMISTIC)
+    List<Member> findMemberOptimisticByUsername(String username);
+
+    // 바꾸지 않아도 커밋 때 version 을 올린다. 같은 회원을 기준으로 한 다른 트랜잭션의 작업을 무효로 만들 때
+    @Transactional
+    @Lock(LockModeType.OPTIMISTIC_FORCE_INCREMENT)
+    List<Member> findMemberForceIncrementByUsername(String username);
+
+    @Transactional
+    @Lock(LockModeType.OPTIMISTIC)
+    Optional<Member> findOptimisticById(Long id);
+
+    @Transactional
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<Member> findPessimisticById(Long id);
+
     List<UsernameOnly> findProjectionByUsername(@Param("username") String username);
+
+    // username 컬럼만 조회
+    Optional<UsernameOnly> findUsernameOnlyById(Long id);
 }
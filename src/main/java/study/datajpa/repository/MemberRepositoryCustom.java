@@ -1,6 +1,13 @@
 package study.datajpa.repository;
 
 import java.util.List;
+import java.util.stream.Stream;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberColumns;
+import study.datajpa.dto.MemberRow;
 import study.datajpa.entity.Member;
 
 /**
@@ -9,4 +16,54 @@ import study.datajpa.entity.Member;
 public interface MemberRepositoryCustom {
 
     List<Member> findAllMemberCustom();
+
+    /**
+     * username in :names. 이름이 많으면 in 절을 나눠서 여러 번 조회하거나 임시 테이블에 넣고 조인한다. 중복 이름은 한 번만 찾는다.
+     * 어느 쪽인지에 따라 트랜잭션(읽기 전용 / 쓰기)이 달라서 구현에서 정한다.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    List<Member> findByNames(List<String> names);
+
+    /**
+     * findAllMemberCustom 의 스트리밍 버전. forward-only 커서로 읽고 꺼낸 엔티티는 바로 detach 한다.
+     * 트랜잭션 안에서 try-with-resources 로 사용해야 커서가 닫힌다. detach 된 엔티티라 지연 로딩은 안된다.
+     */
+    Stream<Member> streamAllMemberCustom();
+
+    /**
+     * findMemberDto 와 같은 결과(팀이 있는 회원, id / username / 팀 이름)를 JDBC 로 바로 읽는다.
+     * 엔티티 / 영속성 컨텍스트 / 생성자 표현식을 거치지 않고, 같은 팀 이름은 인스턴스 하나를 같이 쓴다.
+     */
+    List<MemberRow> findMemberRows();
+
+    /**
+     * findMemberRows 의 컬럼 배열 버전. 행 객체도 만들지 않는다. 수만 건 이상 리포트용
+     */
+    MemberColumns findMemberColumns();
+
+    /**
+     * 전체 회원(팀 없는 회원 포함)을 pk 순으로 JDBC 커서에서 읽는 대로 한 행씩 넘긴다. 엔티티도, 행 목록도 만들지 않는다.
+     * 읽는 동안 트랜잭션(커넥션) 하나를 쥐고 있고, handler 가 막히면(느린 클라이언트) 커서도 그만큼 천천히 읽는다.
+     * handler 에서 던진 예외는 그대로 나가고 커서는 닫힌다.
+     */
+    void exportMembers(MemberExportHandler handler);
+
+    /**
+     * count 처리 방식을 골라서 페이징. NONE 이면 Slice, 나머지는 Page 를 반환한다.
+     */
+    Slice<Member> findByAge(int age, Pageable pageable, CountMode countMode);
+
+    Slice<Member> findAll(Pageable pageable, CountMode countMode);
+
+    /**
+     * findMemberLockByUsername 에 락 대기 방식을 지정한 버전. (PESSIMISTIC_WRITE)
+     */
+    List<Member> findMemberLockByUsername(String username, LockWait wait);
+
+    /**
+     * 작업 큐 : age 인 회원을 pk 순으로 limit 명까지 잠그고 가져온다. 호출한 트랜잭션이 끝날 때까지 락을 쥔다.
+     * SKIP_LOCKED 면 다른 워커가 잡고 있는 row 는 건너뛰므로 여러 워커(노드)가 겹치지 않는 묶음을 나눠 가진다.
+     * 처리한 회원은 같은 트랜잭션에서 age 를 바꾸거나 지워서 큐에서 빼야 다시 잡히지 않는다.
+     */
+    List<Member> claimByAge(int age, int limit, LockWait wait);
 }
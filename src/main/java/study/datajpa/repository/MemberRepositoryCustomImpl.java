@@ -1,20 +1,416 @@
 package study.datajpa.repository;
 
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
 import jakarta.persistence.EntityManager;
-import lombok.RequiredArgsConstructor;
+import jakarta.persistence.TypedQuery;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.Session;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+import org.springframework.data.support.PageableExecutionUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.dto.MemberColumns;
+import study.datajpa.dto.MemberRow;
 import study.datajpa.entity.Member;
 
-@RequiredArgsConstructor
-public class MemberRepositoryCustomImpl implements MemberRepositoryCustom {
+@Slf4j
+public class MemberRepositoryCustomImpl implements MemberRepositoryCustom, WarmupQueries {
+
+    private static final String NAMES_TEMP_TABLE = "tmp_member_names";
+    private static final String FIND_ALL = "select m from Member m";
+    private static final String COUNT = "select count(m) from Member m";
+    private static final String FIND_BY_NAMES = "select m from Member m where m.username in :names";
+    private static final String FIND_BY_AGE = "select m from Member m where m.age = :age";
+    private static final String COUNT_BY_AGE = "select count(m) from Member m where m.age = :age";
+    private static final String FIND_BY_USERNAME = "select m from Member m where m.username = :username";
+    private static final String MEMBER_ROWS = "select m.member_id, m.username, t.team_id, t.name"
+            + " from member m join team t on t.team_id = m.teal_id";
+    private static final String EXPORT = "select m.member_id, m.username, m.age, t.name"
+            + " from member m left join team t on t.team_id = m.teal_id order by m.member_id";
+    private static final String CLAIM_CANDIDATES = "select m.id from Member m where m.age = :age and m.id > :afterId"
+            + " order by m.id";
+    private static final String CLAIM_BY_IDS = "select m from Member m where m.id in :ids and m.age = :age";
 
     private final EntityManager em;
+    private final CountCache countCache;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TransactionTemplate writeTransaction;
+    private final int inListMaxSize;
+    private final int tempTableThreshold;
+    private Boolean tempTableSupported;
+
+
+    public MemberRepositoryCustomImpl(EntityManager em, CountCache countCache,
+            PlatformTransactionManager transactionManager,
+            @Value("${datajpa.in-list.max-size:512}") int inListMaxSize,
+            @Value("${datajpa.in-list.temp-table-threshold:0}") int tempTableThreshold) {
+        this.em = em;
+        this.countCache = countCache;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.writeTransaction = new TransactionTemplate(transactionManager);
+        this.inListMaxSize = inListMaxSize;
+        this.tempTableThreshold = tempTableThreshold;
+    }
+
+
+    /**
+     * 정렬이 붙은 페이징 쿼리는 정렬 조건마다 JPQL 이 달라서 정렬 없는 기본형만 올린다.
+     */
+    @Override
+    public List<String> warmupQueries() {
+        return List.of(FIND_ALL, COUNT, FIND_BY_NAMES, FIND_BY_AGE, COUNT_BY_AGE, FIND_BY_USERNAME, CLAIM_CANDIDATES,
+                CLAIM_BY_IDS);
+    }
 
 
     @Override
     public List<Member> findAllMemberCustom() {
-        return em.createQuery("select m from Member m", Member.class).getResultList();
+        return em.createQuery(FIND_ALL, Member.class).getResultList();
+
+    }
+
+
+    /**
+     * in 절 바인딩 수는 hibernate in_clause_parameter_padding 으로 2의 제곱수로 맞춰져서 SQL / 실행 계획 종류가 몇 개로 줄어든다.
+     * inListMaxSize 를 넘으면 그 크기로 잘라 순서대로 조회한다. (같은 영속성 컨텍스트를 쓰므로 병렬로 돌리지 않는다)
+     * tempTableThreshold 가 0 보다 크고 그 이상이면 임시 테이블에 배치 insert 후 조인 한 번으로 조회한다.
+     * <p>
+     * in 절 조회는 읽기 전용 트랜잭션(읽기/쓰기 분리 시 replica), 임시 테이블은 DDL / insert 를 하므로 쓰기 트랜잭션(primary)에서 돈다.
+     * 임시 테이블 DDL 은 H2 문법이라 H2 가 아니거나 이미 읽기 전용 트랜잭션 안이면 in 절을 나눠서 조회한다.
+     * (MemberRepositoryCustom#findByNames 가 repository 의 readOnly 기본값을 SUPPORTS 로 덮는다)
+     */
+    @Override
+    public List<Member> findByNames(List<String> names) {
+        List<String> distinctNames = List.copyOf(new LinkedHashSet<>(names));
+
+        if(tempTableThreshold > 0 && distinctNames.size() >= tempTableThreshold && isTempTableSupported()
+                && !TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return writeTransaction.execute(status -> findByNamesWithTempTable(distinctNames));
+        }
+
+        return readOnlyTransaction.execute(status -> {
+            if(distinctNames.size() <= inListMaxSize) {
+                return findByNamesIn(distinctNames);
+            }
+
+            List<Member> members = new ArrayList<>(distinctNames.size());
+            for(int from = 0; from < distinctNames.size(); from += inListMaxSize) {
+                members.addAll(findByNamesIn(distinctNames.subList(from,
+                        Math.min(from + inListMaxSize, distinctNames.size()))));
+            }
+
+            return members;
+        });
+    }
+
+
+    // 기동 시 EntityManagerFactory 가 백그라운드에서 만들어질 수 있어서 (deferred) 처음 쓸 때 확인한다
+    private boolean isTempTableSupported() {
+        if(tempTableSupported == null) {
+            Dialect dialect = em.getEntityManagerFactory().unwrap(SessionFactoryImplementor.class)
+                    .getJdbcServices().getDialect();
+            tempTableSupported = dialect instanceof H2Dialect;
+            if(!tempTableSupported) {
+                log.warn("datajpa.in-list.temp-table-threshold 는 H2 에서만 쓴다. in 절을 나눠서 조회한다 : {}", dialect);
+            }
+        }
+
+        return tempTableSupported;
+    }
+
+
+    private List<Member> findByNamesIn(List<String> names) {
+        return em.createQuery(FIND_BY_NAMES, Member.class)
+                .setParameter("names", names).getResultList();
+    }
+
+
+    /**
+     * H2 문법의 트랜잭션 임시 테이블(세션 범위). 쓰기 트랜잭션 안에서 호출한다. DDL 이 커밋을 일으키지 않도록 TRANSACTIONAL 로 만들고, 커넥션이 풀로 돌아가도
+     * 다음 사용자에게 남지 않도록 조회 후 비운다.
+     */
+    @SuppressWarnings("unchecked")
+    private List<Member> findByNamesWithTempTable(List<String> names) {
+        em.unwrap(Session.class).doWork(connection -> {
+            try(Statement statement = connection.createStatement()) {
+                statement.execute("create local temporary table if not exists " + NAMES_TEMP_TABLE
+                        + " (username varchar(255) primary key) transactional");
+            }
+
+            try(PreparedStatement insert = connection.prepareStatement(
+                    "insert into " + NAMES_TEMP_TABLE + " (username) values (?)")) {
+                for(int i = 0; i < names.size(); i++) {
+                    insert.setString(1, names.get(i));
+                    insert.addBatch();
+
+                    if((i + 1) % inListMaxSize == 0) {
+                        insert.executeBatch();
+                    }
+                }
+                insert.executeBatch();
+            }
+        });
+
+        try {
+            return em.createNativeQuery("select m.* from member m join " + NAMES_TEMP_TABLE
+                    + " n on n.username = m.username", Member.class).getResultList();
+        } finally {
+            em.unwrap(Session.class).doWork(connection -> {
+                try(Statement statement = connection.createStatement()) {
+                    statement.execute("delete from " + NAMES_TEMP_TABLE);
+                }
+            });
+        }
+    }
+
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<MemberRow> findMemberRows() {
+        List<MemberRow> rows = new ArrayList<>();
+        readMemberRows((id, username, teamName) -> rows.add(new MemberRow(id, username, teamName)));
+
+        return rows;
+    }
+
+
+    @Override
+    @Transactional(readOnly = true)
+    public MemberColumns findMemberColumns() {
+        MemberColumns columns = new MemberColumns(MemberJpaRepository.STREAM_FETCH_SIZE);
+        readMemberRows(columns::add);
+
+        return columns;
+    }
+
+
+    /**
+     * 같은 트랜잭션에서 아직 flush 안 된 변경도 보이게 먼저 flush 한다. 팀 이름은 team_id 로 한 번만 읽는다.
+     */
+    private void readMemberRows(MemberRowConsumer consumer) {
+        em.flush();
+        em.unwrap(Session.class).doWork(connection -> {
+            try(PreparedStatement statement = connection.prepareStatement(MEMBER_ROWS)) {
+                statement.setFetchSize(MemberJpaRepository.STREAM_FETCH_SIZE);
+
+                try(ResultSet rs = statement.executeQuery()) {
+                    TeamNames teamNames = new TeamNames();
+                    while(rs.next()) {
+                        long teamId = rs.getLong(3);
+                        String teamName = teamNames.get(teamId);
+                        if(teamName == null) {
+                            teamName = rs.getString(4);
+                            teamNames.put(teamId, teamName);
+                        }
+                        consumer.accept(rs.getLong(1), rs.getString(2), teamName);
+                    }
+                }
+            }
+        });
+    }
+
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportMembers(MemberExportHandler handler) {
+        em.flush();
+        em.unwrap(Session.class).doWork(connection -> {
+            try(PreparedStatement statement = connection.prepareStatement(EXPORT, ResultSet.TYPE_FORWARD_ONLY,
+                    ResultSet.CONCUR_READ_ONLY)) {
+                statement.setFetchSize(MemberJpaRepository.STREAM_FETCH_SIZE);
+
+                try(ResultSet rs = statement.executeQuery()) {
+                    while(rs.next()) {
+                        handler.row(rs.getLong(1), rs.getString(2), rs.getInt(3), rs.getString(4));
+                    }
+                }
+            }
+        });
+    }
+
+
+    /**
+     * team_id -> 팀 이름. 행마다 Long 을 만들지 않도록 long 키를 그대로 쓰는 open addressing 해시 (선형 탐사)
+     */
+    private static final class TeamNames {
+
+        private long[] keys = new long[16];
+        private String[] values = new String[16];
+        private int size;
+
+
+        String get(long key) {
+            int mask = keys.length - 1;
+            for(int i = index(key, mask); values[i] != null; i = (i + 1) & mask) {
+                if(keys[i] == key) {
+                    return values[i];
+                }
+            }
+
+            return null;
+        }
+
+
+        // 이름이 null 인 팀은 담지 않는다 (빈 칸 표시와 구분이 안된다)
+        void put(long key, String value) {
+            if(value == null) {
+                return;
+            }
+            if((size + 1) * 2 > keys.length) {
+                resize();
+            }
+
+            int mask = keys.length - 1;
+            int i = index(key, mask);
+            while(values[i] != null && keys[i] != key) {
+                i = (i + 1) & mask;
+            }
+            if(values[i] == null) {
+                size++;
+            }
+            keys[i] = key;
+            values[i] = value;
+        }
+
+
+        private void resize() {
+            long[] oldKeys = keys;
+            String[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new String[oldValues.length * 2];
+            size = 0;
+
+            for(int i = 0; i < oldKeys.length; i++) {
+                if(oldValues[i] != null) {
+                    put(oldKeys[i], oldValues[i]);
+                }
+            }
+        }
+
+
+        private static int index(long key, int mask) {
+            return Long.hashCode(key * 0x9E3779B97F4A7C15L) & mask;
+        }
+    }
+
+
+    @FunctionalInterface
+    private interface MemberRowConsumer {
+
+        void accept(long id, String username, String teamName) throws SQLException;
+    }
+
+
+    @Override
+    public Stream<Member> streamAllMemberCustom() {
+        return DetachingStream.of(em, em.createQuery(FIND_ALL, Member.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, MemberJpaRepository.STREAM_FETCH_SIZE).getResultStream());
+    }
+
+
+    @Override
+    public Slice<Member> findByAge(int age, Pageable pageable, CountMode countMode) {
+        return findPage(FIND_BY_AGE, COUNT_BY_AGE, Map.of("age", age), pageable, countMode);
+    }
+
+
+    @Override
+    public Slice<Member> findAll(Pageable pageable, CountMode countMode) {
+        return findPage(FIND_ALL, COUNT, Map.of(), pageable, countMode);
+    }
+
+
+    @Override
+    @Transactional
+    public List<Member> findMemberLockByUsername(String username, LockWait wait) {
+        return wait.apply(em.createQuery(FIND_BY_USERNAME, Member.class).setParameter("username", username))
+                .getResultList();
+    }
+
+
+    /**
+     * 잠글 후보 id 를 pk 순으로 (락 없이) 읽고, 그 id 들만 잠가서 가져온다. 다른 워커가 잡고 있어서 모자라면 다음 후보로 넘어간다.
+     * order by 와 for update 를 한 쿼리에 쓰면 H2 는 조건에 맞는 row 를 모두 잠근 다음 정렬 / limit 해서 다른 워커 몫이 남지 않는다.
+     * 잠근 쿼리에서 age 를 다시 보므로 후보를 읽은 뒤 다른 워커가 처리(커밋)한 회원은 빠진다.
+     */
+    @Override
+    @Transactional
+    public List<Member> claimByAge(int age, int limit, LockWait wait) {
+        List<Member> claimed = new ArrayList<>(limit);
+        long afterId = Long.MIN_VALUE;
+
+        while(claimed.size() < limit) {
+            List<Long> candidates = em.createQuery(CLAIM_CANDIDATES, Long.class).setParameter("age", age)
+                    .setParameter("afterId", afterId).setMaxResults(limit - claimed.size()).getResultList();
+            if(candidates.isEmpty()) {
+                break;
+            }
+
+            List<Member> locked = new ArrayList<>(wait.apply(em.createQuery(CLAIM_BY_IDS, Member.class)
+                    .setParameter("ids", candidates).setParameter("age", age)).getResultList());
+            locked.sort(Comparator.comparing(Member::getId));
+            claimed.addAll(locked);
+            afterId = candidates.get(candidates.size() - 1);
+        }
+
+        return claimed;
+    }
+
+
+    private Slice<Member> findPage(String jpql, String countJpql, Map<String, Object> params, Pageable pageable,
+            CountMode countMode) {
+        TypedQuery<Member> query = em.createQuery(QueryUtils.applySorting(jpql, pageable.getSort(), "m"), Member.class);
+        params.forEach(query::setParameter);
+
+        if(pageable.isUnpaged()) {
+            List<Member> content = query.getResultList();
+            return PageableExecutionUtils.getPage(content, pageable, content::size);
+        }
+
+        query.setFirstResult((int) pageable.getOffset());
+
+        if(countMode == CountMode.NONE) {
+            // limit + 1 개를 가져와서 다음 페이지가 있는지만 확인
+            List<Member> content = query.setMaxResults(pageable.getPageSize() + 1).getResultList();
+            boolean hasNext = content.size() > pageable.getPageSize();
+
+            return new SliceImpl<>(hasNext ? content.subList(0, pageable.getPageSize()) : content, pageable, hasNext);
+        }
+
+        List<Member> content = query.setMaxResults(pageable.getPageSize()).getResultList();
+
+        // 첫 페이지거나 마지막 페이지면 count 쿼리 자체를 생략한다
+        return PageableExecutionUtils.getPage(content, pageable, () -> countMode == CountMode.CACHED
+                ? countCache.get(Member.class, countJpql + params, () -> count(countJpql, params))
+                : count(countJpql, params));
+    }
+
+
+    private long count(String countJpql, Map<String, Object> params) {
+        TypedQuery<Long> countQuery = em.createQuery(countJpql, Long.class);
+        params.forEach(countQuery::setParameter);
 
+        return countQuery.getSingleResult();
     }
 }
@@ -0,0 +1,115 @@
+package study.datajpa.repository;
+
+import java.lang.reflect.Method;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationListener;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * 기동 시(웹 서버가 뜨기 전) repository JPQL 을 미리 파싱해서 hibernate 쿼리 계획 캐시(plan_cache_max_size)에 올려둔다.
+ * 배포 직후 첫 요청이 파싱 비용을 내지 않게 하기 위함이다.
+ * <ul>
+ *     <li>spring data repository 의 @Query / countQuery (native 제외)</li>
+ *     <li>{@link WarmupQueries} 를 구현한 빈의 JPQL</li>
+ * </ul>
+ * named query 는 hibernate 가 기동 시 이미 컴파일한다. 파생 쿼리는 criteria 로 만들어지므로 대상이 아니다.
+ * <p>
+ * timing=ready 면 기동이 끝난 뒤(ApplicationReadyEvent)에 한다. repository 를 지연 초기화(deferred / lazy)할 때
+ * 워밍업이 repository 생성을 기동 경로로 다시 끌어오지 않게 하기 위함이다.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "datajpa.query-warmup.enabled", matchIfMissing = true)
+public class QueryPlanWarmer implements SmartInitializingSingleton, ApplicationListener<ApplicationReadyEvent> {
+
+    private final EntityManagerFactory emf;
+    private final ListableBeanFactory beanFactory;
+    private final ObjectProvider<WarmupQueries> warmupQueries;
+    private final boolean onReady;
+
+
+    public QueryPlanWarmer(EntityManagerFactory emf, ListableBeanFactory beanFactory,
+            ObjectProvider<WarmupQueries> warmupQueries,
+            @Value("${datajpa.query-warmup.timing:startup}") String timing) {
+        this.emf = emf;
+        this.beanFactory = beanFactory;
+        this.warmupQueries = warmupQueries;
+        this.onReady = switch(timing) {
+            case "startup" -> false;
+            case "ready" -> true;
+            default -> throw new IllegalArgumentException("datajpa.query-warmup.timing 은 startup | ready : " + timing);
+        };
+    }
+
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        if(!onReady) {
+            warmUp();
+        }
+    }
+
+
+    @Override
+    public void onApplicationEvent(ApplicationReadyEvent event) {
+        if(onReady) {
+            warmUp();
+        }
+    }
+
+
+    private void warmUp() {
+        Set<String> queries = new LinkedHashSet<>();
+
+        Repositories repositories = new Repositories(beanFactory);
+        for(Class<?> domainType : repositories) {
+            repositories.getRepositoryInformationFor(domainType).ifPresent(information -> {
+                for(Method method : information.getQueryMethods()) {
+                    Query query = AnnotatedElementUtils.findMergedAnnotation(method, Query.class);
+                    if(query != null && !query.nativeQuery()) {
+                        queries.add(query.value());
+                        if(StringUtils.hasText(query.countQuery())) {
+                            queries.add(query.countQuery());
+                        }
+                    }
+                }
+            });
+        }
+
+        warmupQueries.orderedStream().forEach(source -> queries.addAll(source.warmupQueries()));
+
+        long start = System.nanoTime();
+        int failed = 0;
+
+        EntityManager em = emf.createEntityManager();
+        try {
+            for(String query : queries) {
+                try {
+                    em.createQuery(query);
+                } catch(IllegalArgumentException e) {
+                    failed++;
+                    log.warn("query plan warm-up 실패 : {}", query, e);
+                }
+            }
+        } finally {
+            em.close();
+        }
+
+        log.info("query plan warm-up : {} queries ({} failed), {} ms", queries.size(), failed,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
@@ -3,18 +3,29 @@ package study.datajpa.repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Team;
 
 @Repository
-public class TeamJpaRepository {
+public class TeamJpaRepository implements WarmupQueries {
+
+    private static final String FIND_ALL = "select t from Team t";
+    private static final String COUNT = "select count(t) from Team t";
 
     @PersistenceContext
     EntityManager entityManager;
 
 
+    @Override
+    public List<String> warmupQueries() {
+        return List.of(FIND_ALL, COUNT);
+    }
+
+
     public Team save(Team team) {
         entityManager.persist(team);
         return team;
@@ -27,7 +38,16 @@ public class TeamJpaRepository {
 
 
     public List<Team> findAll() {
-        return entityManager.createQuery("select t from Team t", Team.class).getResultList();
+        return entityManager.createQuery(FIND_ALL, Team.class).getResultList();
+    }
+
+
+    /**
+     * findAll 의 스트리밍 버전. 트랜잭션 안에서 try-with-resources 로 사용한다.
+     */
+    public Stream<Team> streamAll() {
+        return DetachingStream.of(entityManager, entityManager.createQuery(FIND_ALL, Team.class)
+                .setHint(HibernateHints.HINT_FETCH_SIZE, MemberJpaRepository.STREAM_FETCH_SIZE).getResultStream());
     }
 
 
@@ -39,6 +59,6 @@ public class TeamJpaRepository {
 
 
     public long count() {
-        return entityManager.createQuery("select count(t) from Team t", Long.class).getSingleResult();
+        return entityManager.createQuery(COUNT, Long.class).getSingleResult();
     }
 }
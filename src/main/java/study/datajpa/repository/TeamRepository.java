@@ -1,6 +1,7 @@
 package study.datajpa.repository;
 
 
+import java.util.Optional;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import study.datajpa.entity.Team;
@@ -8,4 +9,5 @@ import study.datajpa.entity.Team;
 @Repository
 public interface TeamRepository extends JpaRepository<Team, Long> {
 
+    Optional<Team> findFirstByName(String name);
 }
@@ -0,0 +1,11 @@
+package study.datajpa.repository;
+
+import java.util.List;
+
+/**
+ * 직접 em.createQuery 로 만드는 JPQL 을 가진 repository 가 구현한다. 기동 시 {@link QueryPlanWarmer} 가 미리 컴파일한다.
+ */
+public interface WarmupQueries {
+
+    List<String> warmupQueries();
+}
@@ -0,0 +1,54 @@
+package study.datajpa.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 청크 단위 벌크 업데이트 결과 / 진행 상황. 재개된 작업이면 이전 실행에서 처리한 건수도 rows 에 포함된다.
+ * 동시에 도는 같은 작업이 처리한 구간은 건너뛰고 rows / chunks 에 넣지 않는다.
+ */
+@Getter
+@ToString
+public class BulkUpdateResult {
+
+    private final String jobName;
+    private final boolean resumed;
+    private final long fromId;
+    private final long maxId;
+    private long lastId;
+    private long rows;
+    private int chunks;
+    private long elapsedMillis;
+
+
+    BulkUpdateResult(String jobName, boolean resumed, long fromId, long maxId, long rows) {
+        this.jobName = jobName;
+        this.resumed = resumed;
+        this.fromId = fromId;
+        this.maxId = maxId;
+        this.lastId = fromId;
+        this.rows = rows;
+    }
+
+
+    void chunkCompleted(long lastId, int chunkRows) {
+        this.lastId = lastId;
+        this.rows += chunkRows;
+        chunks++;
+    }
+
+
+    void skipped(long lastId) {
+        this.lastId = lastId;
+    }
+
+
+    void completed(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+    }
+
+
+    public int getPercent() {
+        return maxId <= fromId ? 100 : (int) ((lastId - fromId) * 100 / (maxId - fromId));
+    }
+}
@@ -0,0 +1,33 @@
+package study.datajpa.service;
+
+/**
+ * 회원 export 형식. 컬럼은 import(MemberImportService)와 같은 이름(username, age, team)에 id 를 더한 것.
+ * <p>
+ * NDJSON 은 importNdjson 으로 다시 읽을 수 있다. (id 는 무시하고 새로 발급)
+ * CSV 는 쉼표 / 따옴표 / 줄바꿈이 든 값을 따옴표로 감싸는데 importCsv 는 따옴표를 읽지 못한다.
+ * 그런 값이 있으면 다시 읽을 수 없으니 옮길 때는 NDJSON 을 쓴다.
+ */
+public enum ExportFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv;charset=UTF-8", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+
+    ExportFormat(String contentType, String extension) {
+        this.contentType = contentType;
+        this.extension = extension;
+    }
+
+
+    public String contentType() {
+        return contentType;
+    }
+
+
+    public String extension() {
+        return extension;
+    }
+}
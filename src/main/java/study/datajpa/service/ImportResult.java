@@ -0,0 +1,46 @@
+package study.datajpa.service;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 벌크 import 결과. 청크별 latency 는 건수와 무관하게 min / max / 합계만 들고 있는다.
+ */
+@Getter
+@ToString
+public class ImportResult {
+
+    private long rows;
+    private int chunks;
+    private long elapsedMillis;
+    private long minChunkMillis = Long.MAX_VALUE;
+    private long maxChunkMillis;
+    private long totalChunkMillis;
+
+
+    void chunkCompleted(int chunkRows, long chunkMillis) {
+        rows += chunkRows;
+        chunks++;
+        minChunkMillis = Math.min(minChunkMillis, chunkMillis);
+        maxChunkMillis = Math.max(maxChunkMillis, chunkMillis);
+        totalChunkMillis += chunkMillis;
+    }
+
+
+    void completed(long elapsedMillis) {
+        this.elapsedMillis = elapsedMillis;
+        if(chunks == 0) {
+            minChunkMillis = 0;
+        }
+    }
+
+
+    public long getAvgChunkMillis() {
+        return chunks == 0 ? 0 : totalChunkMillis / chunks;
+    }
+
+
+    public long getRowsPerSecond() {
+        return elapsedMillis == 0 ? rows : rows * 1000 / elapsedMillis;
+    }
+}
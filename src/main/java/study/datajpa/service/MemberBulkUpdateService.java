@@ -0,0 +1,171 @@
+package study.datajpa.service;
+
+import java.time.Duration;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.BulkJobCheckpoint;
+import study.datajpa.repository.BulkJobCheckpointRepository;
+import study.datajpa.repository.MemberRepository;
+
+/**
+ * 큰 테이블용 bulkAgePlus.
+ * <p>
+ * update 한 번으로 전체 테이블을 바꾸지 않고 pk 를 chunkSize 구간으로 나눠서 구간마다 커밋한다. (락 보유 시간 / undo 크기가 청크만큼)
+ * 청크마다 chunkTimeout 트랜잭션 타임아웃을 걸고, 청크 사이에는 throttle 만큼 쉰다.
+ * 진행 위치는 청크와 같은 트랜잭션에서 {@link BulkJobCheckpoint} 에 남기므로 중간에 실패하면 같은 age 로 다시 호출해서 이어간다.
+ * 청크는 진행 위치를 비관적 락으로 잡고 시작하고, 진행 위치가 청크 시작 pk 와 같을 때만 update 한다.
+ * 같은 작업이 동시에 돌면 (중복 호출, 앞 실행이 끝나기 전에 재개) 다른 실행이 처리한 구간은 건너뛰고 진행 위치부터 이어간다.
+ * <p>
+ * 청크는 별도 트랜잭션(REQUIRES_NEW)에서 돈다. 트랜잭션 안에서 호출하면 clearAutomatically 처럼 끝날 때 호출한 쪽 영속성 컨텍스트를 비운다.
+ * 호출한 트랜잭션이 같은 회원 row 에 락을 잡고 있으면 청크가 기다리다 타임아웃 나므로 트랜잭션 밖에서 호출하는 것이 원칙이다.
+ */
+@Slf4j
+@Service
+public class MemberBulkUpdateService {
+
+    private static final String AGE_PLUS_JOB = "member-age-plus:";
+
+    private final MemberRepository memberRepository;
+    private final BulkJobCheckpointRepository checkpointRepository;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final Duration throttle;
+
+
+    public MemberBulkUpdateService(MemberRepository memberRepository,
+            BulkJobCheckpointRepository checkpointRepository, EntityManager em,
+            PlatformTransactionManager transactionManager,
+            @Value("${datajpa.bulk-update.chunk-size:1000}") int chunkSize,
+            @Value("${datajpa.bulk-update.throttle:50ms}") Duration throttle,
+            @Value("${datajpa.bulk-update.chunk-timeout:30s}") Duration chunkTimeout) {
+        this.memberRepository = memberRepository;
+        this.checkpointRepository = checkpointRepository;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setTimeout((int) chunkTimeout.toSeconds());
+        this.chunkSize = chunkSize;
+        this.throttle = throttle;
+    }
+
+
+    /**
+     * age 이상인 회원의 나이를 1 올린다. 처음 호출할 때의 최대 pk 까지만 처리하고, 그 뒤에 들어온 회원은 대상이 아니다.
+     */
+    public BulkUpdateResult bulkAgePlus(int age) {
+        long start = System.currentTimeMillis();
+        BulkUpdateResult result = begin(AGE_PLUS_JOB + age);
+
+        int loggedPercent = result.getPercent() / 10;
+
+        while(result.getLastId() < result.getMaxId()) {
+            long fromId = result.getLastId();
+            long toId = Math.min(fromId + chunkSize, result.getMaxId());
+
+            Chunk chunk = transactionTemplate.execute(status -> {
+                BulkJobCheckpoint checkpoint = checkpointRepository.findForUpdate(result.getJobName()).orElse(null);
+                if(checkpoint == null) {
+                    // 같은 작업의 다른 실행이 끝내고 지웠다
+                    return new Chunk(result.getMaxId(), 0, false);
+                }
+                if(checkpoint.getLastId() != fromId) {
+                    return new Chunk(checkpoint.getLastId(), 0, false);
+                }
+
+                int rows = memberRepository.bulkAgePlusInRange(age, fromId, toId);
+                // 벌크 update 가 영속성 컨텍스트를 비우므로 다시 읽는다. 락은 트랜잭션 끝까지 유지된다
+                checkpointRepository.findById(result.getJobName()).orElseThrow().advance(toId, rows);
+                return new Chunk(toId, rows, true);
+            });
+
+            if(!chunk.updated()) {
+                log.info("{} 다른 실행이 {} 까지 처리했으므로 건너뜀", result.getJobName(), chunk.lastId());
+                result.skipped(chunk.lastId());
+                continue;
+            }
+
+            result.chunkCompleted(chunk.lastId(), chunk.rows());
+
+            if(result.getPercent() / 10 > loggedPercent) {
+                loggedPercent = result.getPercent() / 10;
+                log.info("{} {}% ({} / {}), {} rows", result.getJobName(), result.getPercent(), toId,
+                        result.getMaxId(), result.getRows());
+            }
+
+            if(result.getLastId() < result.getMaxId()) {
+                pause();
+            }
+        }
+
+        // 동시에 돈 다른 실행이 먼저 지웠을 수 있다
+        transactionTemplate.executeWithoutResult(status -> checkpointRepository.findForUpdate(result.getJobName())
+                .ifPresent(checkpointRepository::delete));
+
+        if(TransactionSynchronizationManager.isActualTransactionActive()) {
+            em.clear();
+        }
+
+        result.completed(System.currentTimeMillis() - start);
+        log.info("{} 완료 {}", result.getJobName(), result);
+
+        return result;
+    }
+
+
+    private BulkUpdateResult begin(String jobName) {
+        try {
+            return transactionTemplate.execute(status -> beginOrResume(jobName));
+        } catch(DataIntegrityViolationException e) {
+            // 같은 작업이 동시에 시작해서 진행 위치를 먼저 만들었다. 그 위치부터 이어간다
+            return transactionTemplate.execute(status -> beginOrResume(jobName));
+        }
+    }
+
+
+    private BulkUpdateResult beginOrResume(String jobName) {
+        BulkJobCheckpoint checkpoint = checkpointRepository.findById(jobName).orElse(null);
+
+        if(checkpoint != null) {
+            log.info("{} 재개 : {} 이후부터 {} 까지", jobName, checkpoint.getLastId(), checkpoint.getMaxId());
+            return new BulkUpdateResult(jobName, true, checkpoint.getLastId(), checkpoint.getMaxId(),
+                    checkpoint.getUpdatedRows());
+        }
+
+        // pk 는 구간 (fromId, toId] 로 훑으므로 최소 pk 바로 앞에서 시작
+        long fromId = memberRepository.findMinId() - 1;
+        long maxId = memberRepository.findMaxId();
+        checkpointRepository.saveAndFlush(new BulkJobCheckpoint(jobName, fromId, maxId));
+
+        return new BulkUpdateResult(jobName, false, fromId, maxId, 0);
+    }
+
+
+    private void pause() {
+        if(throttle.isZero()) {
+            return;
+        }
+
+        try {
+            Thread.sleep(throttle.toMillis());
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("벌크 업데이트가 중단되었습니다. 같은 조건으로 다시 호출하면 이어서 진행합니다.", e);
+        }
+    }
+
+
+    /**
+     * 청크 트랜잭션 결과. updated 가 false 면 다른 실행이 lastId 까지 처리했거나 작업을 끝냈다.
+     */
+    private record Chunk(long lastId, int rows, boolean updated) {
+
+    }
+}
@@ -0,0 +1,46 @@
+package study.datajpa.service;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import study.datajpa.entity.Member;
+
+/**
+ * Member 엔티티 리스너. flush 시점(update / delete)에 username 캐시를 지우고,
+ * 커밋 전에 다른 요청이 옛날 값을 다시 캐시할 수 있으므로 트랜잭션 완료 후 한번 더 지운다.
+ * 벌크 update 는 리스너를 거치지 않으므로 username 을 바꾸는 벌크 쿼리를 추가하면 직접 지워야 한다.
+ */
+public class MemberCacheEvictListener {
+
+    private final CacheManager cacheManager;
+
+
+    public MemberCacheEvictListener(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+
+    @PostUpdate
+    @PostRemove
+    public void evict(Member member) {
+        Cache cache = cacheManager.getCache(MemberQueryService.USERNAME_CACHE);
+        if(cache == null) {
+            return;
+        }
+
+        Long id = member.getId();
+        cache.evict(id);
+
+        if(TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.evict(id);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package study.datajpa.service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPOutputStream;
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import study.datajpa.repository.MemberRepository;
+
+/**
+ * 전체 회원 export (NDJSON / CSV). 페이지를 나누지 않고 쿼리 한 번의 커서에서 읽는 대로 out 에 쓴다.
+ * <p>
+ * 행은 모아두지 않고 바로 쓰며, flushRows 건마다 flush 해서 (HTTP 면 청크 하나) 내보낸다. 버퍼 몇 개 외에는 메모리가 일정하다.
+ * out 쓰기가 막히면(느린 클라이언트) 커서 읽기도 같이 멈추고, 쓰기가 실패하면(연결 끊김) 조회도 멈춘다.
+ * gzip 은 sync flush 라서 flush 할 때마다 그때까지 압축한 데이터가 나간다.
+ */
+@Slf4j
+@Service
+public class MemberExportService {
+
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    private final MemberRepository memberRepository;
+    private final JsonFactory jsonFactory;
+    private final int flushRows;
+    private final Duration timeout;
+
+
+    public MemberExportService(MemberRepository memberRepository, ObjectMapper objectMapper,
+            @Value("${datajpa.export.flush-rows:1000}") int flushRows,
+            @Value("${datajpa.export.timeout:1h}") Duration timeout) {
+        if(flushRows < 1) {
+            throw new IllegalArgumentException("datajpa.export.flush-rows must be positive : " + flushRows);
+        }
+        if(timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("datajpa.export.timeout must be positive : " + timeout);
+        }
+
+        this.memberRepository = memberRepository;
+        this.jsonFactory = objectMapper.getFactory();
+        this.flushRows = flushRows;
+        this.timeout = timeout;
+    }
+
+
+    /**
+     * HTTP export 한 건의 비동기 요청 타임아웃. spring.mvc.async.request-timeout 은 다른 비동기 요청에 그대로 둔다.
+     */
+    public Duration timeout() {
+        return timeout;
+    }
+
+
+    /**
+     * 내보낸 행 수를 돌려준다. out 은 닫지 않는다.
+     */
+    public long export(ExportFormat format, boolean gzip, OutputStream out) throws IOException {
+        long start = System.currentTimeMillis();
+        GZIPOutputStream compressed = gzip ? new GZIPOutputStream(out, BUFFER_SIZE, true) : null;
+        RowWriter writer = switch(format) {
+            case NDJSON -> new NdjsonWriter(jsonFactory, compressed != null ? compressed : out);
+            case CSV -> new CsvWriter(compressed != null ? compressed : out);
+        };
+        long[] rows = {0};
+
+        try {
+            memberRepository.exportMembers((id, username, age, teamName) -> {
+                try {
+                    writer.write(id, username, age, teamName);
+                    if(++rows[0] % flushRows == 0) {
+                        writer.flush();
+                    }
+                } catch(IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch(UncheckedIOException e) {
+            log.info("member export 중단 : {} rows 후 {}", rows[0], e.getCause().toString());
+            throw e.getCause();
+        }
+
+        writer.flush();
+        if(compressed != null) {
+            compressed.finish();
+        }
+
+        log.info("member export 완료 : {} {} rows{}, {} ms", format, rows[0], gzip ? " (gzip)" : "",
+                System.currentTimeMillis() - start);
+
+        return rows[0];
+    }
+
+
+    private interface RowWriter {
+
+        void write(long id, String username, int age, String teamName) throws IOException;
+
+        void flush() throws IOException;
+    }
+
+
+    /**
+     * 한 줄에 {"id": 1, "username": "...", "age": 10, "team": "..."} 하나. 팀이 없으면 "team": null
+     */
+    private static final class NdjsonWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+
+        NdjsonWriter(JsonFactory jsonFactory, OutputStream out) throws IOException {
+            this.generator = jsonFactory.createGenerator(out, JsonEncoding.UTF8)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            this.generator.setRootValueSeparator(null);
+        }
+
+
+        @Override
+        public void write(long id, String username, int age, String teamName) throws IOException {
+            generator.writeStartObject();
+            generator.writeNumberField("id", id);
+            generator.writeStringField("username", username);
+            generator.writeNumberField("age", age);
+            generator.writeStringField("team", teamName);
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+
+        @Override
+        public void flush() throws IOException {
+            generator.flush();
+        }
+    }
+
+
+    /**
+     * 첫 줄은 헤더(id,username,age,team). 쉼표 / 따옴표 / 줄바꿈이 든 값은 따옴표로 감싼다. (RFC 4180)
+     */
+    private static final class CsvWriter implements RowWriter {
+
+        private final Writer writer;
+
+
+        CsvWriter(OutputStream out) throws IOException {
+            this.writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+            this.writer.write("id,username,age,team\n");
+        }
+
+
+        @Override
+        public void write(long id, String username, int age, String teamName) throws IOException {
+            writer.write(Long.toString(id));
+            writer.write(',');
+            writeValue(username);
+            writer.write(',');
+            writer.write(Integer.toString(age));
+            writer.write(',');
+            writeValue(teamName);
+            writer.write('\n');
+        }
+
+
+        @Override
+        public void flush() throws IOException {
+            writer.flush();
+        }
+
+
+        private void writeValue(String value) throws IOException {
+            if(value == null) {
+                return;
+            }
+
+            if(value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                writer.write(value);
+                return;
+            }
+
+            writer.write('"');
+            writer.write(value.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+}
@@ -0,0 +1,218 @@
+package study.datajpa.service;
+
+import java.io.BufferedReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import jakarta.persistence.EntityManager;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+/**
+ * 파트너 파일(CSV / NDJSON) 회원 벌크 import.
+ * <p>
+ * 입력은 한 줄씩 읽고, chunkSize 건마다 저장 -> flush -> clear 하므로 영속성 컨텍스트가 파일 크기만큼 커지지 않는다.
+ * 청크마다 트랜잭션을 커밋하고, 이미 트랜잭션 안에서 호출되면 그 트랜잭션에 참여한다.
+ * 팀은 이름으로 찾아서 id 만 로컬 캐시에 두고 프록시(getReference)로 연결하므로 팀 조회가 반복되지 않는다.
+ */
+@Slf4j
+@Service
+public class MemberImportService {
+
+    private final MemberRepository memberRepository;
+    private final TeamRepository teamRepository;
+    private final EntityManager em;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final int chunkSize;
+
+
+    public MemberImportService(MemberRepository memberRepository, TeamRepository teamRepository, EntityManager em,
+            PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+            @Value("${datajpa.import.chunk-size:1000}") int chunkSize) {
+        this.memberRepository = memberRepository;
+        this.teamRepository = teamRepository;
+        this.em = em;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.objectMapper = objectMapper;
+        this.chunkSize = chunkSize;
+    }
+
+
+    /**
+     * 첫 줄은 헤더(username,age,team). team 은 없어도 된다. 따옴표 escape 는 지원하지 않는다.
+     */
+    public ImportResult importCsv(Reader reader) {
+        Iterator<String> lines = lines(reader);
+
+        if(!lines.hasNext()) {
+            ImportResult empty = new ImportResult();
+            empty.completed(0);
+            return empty;
+        }
+
+        String[] header = lines.next().split(",", -1);
+        Map<String, Integer> columns = new HashMap<>();
+        for(int i = 0; i < header.length; i++) {
+            columns.put(header[i].trim(), i);
+        }
+
+        int username = column(columns, "username");
+        int age = column(columns, "age");
+        Integer team = columns.get("team");
+        int required = Math.max(username, age) + 1;
+
+        return doImport(lines, 2, line -> {
+            String[] values = line.split(",", -1);
+            if(values.length < required) {
+                throw new IllegalArgumentException("컬럼이 " + required + " 개보다 적습니다: " + line);
+            }
+
+            return new MemberRow(values[username].trim(), Integer.parseInt(values[age].trim()), value(values, team));
+        });
+    }
+
+
+    /**
+     * 한 줄에 {"username": "...", "age": 10, "team": "..."} 하나.
+     */
+    public ImportResult importNdjson(Reader reader) {
+        return doImport(lines(reader), 1, line -> {
+            try {
+                JsonNode node = objectMapper.readTree(line);
+                if(!node.isObject()) {
+                    throw new IllegalArgumentException("JSON 객체가 아닙니다: " + line);
+                }
+                if(!node.hasNonNull("username")) {
+                    throw new IllegalArgumentException("username 이 없습니다: " + line);
+                }
+                JsonNode age = node.path("age");
+                if(!age.isIntegralNumber() || !age.canConvertToInt()) {
+                    throw new IllegalArgumentException("age 가 없거나 정수가 아닙니다: " + line);
+                }
+
+                JsonNode team = node.get("team");
+                return new MemberRow(node.get("username").asText(), age.asInt(),
+                        team == null || team.isNull() ? null : team.asText());
+            } catch(JsonProcessingException e) {
+                throw new IllegalArgumentException("잘못된 NDJSON 입니다: " + line, e);
+            }
+        });
+    }
+
+
+    /**
+     * 파싱할 수 없는 줄은 IllegalArgumentException 에 줄 번호(firstLine 부터)를 붙여 던진다. 앞 청크는 이미 커밋되어 있다.
+     */
+    private ImportResult doImport(Iterator<String> lines, int firstLine, Function<String, MemberRow> parser) {
+        ImportResult result = new ImportResult();
+        Map<String, Long> teamIds = new HashMap<>();
+        List<MemberRow> chunk = new ArrayList<>(chunkSize);
+        long start = System.currentTimeMillis();
+        long lineNumber = firstLine - 1;
+
+        while(lines.hasNext()) {
+            String line = lines.next();
+            lineNumber++;
+            if(line.isBlank()) {
+                continue;
+            }
+
+            try {
+                chunk.add(parser.apply(line));
+            } catch(IllegalArgumentException e) {
+                throw new IllegalArgumentException(lineNumber + " 번째 줄: " + e.getMessage(), e);
+            }
+
+            if(chunk.size() == chunkSize) {
+                saveChunk(chunk, teamIds, result);
+            }
+        }
+        if(!chunk.isEmpty()) {
+            saveChunk(chunk, teamIds, result);
+        }
+
+        result.completed(System.currentTimeMillis() - start);
+        log.info("member import 완료 {}", result);
+
+        return result;
+    }
+
+
+    private void saveChunk(List<MemberRow> chunk, Map<String, Long> teamIds, ImportResult result) {
+        long start = System.currentTimeMillis();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            List<Member> members = new ArrayList<>(chunk.size());
+            for(MemberRow row : chunk) {
+                Member member = new Member(row.username(), row.age());
+                if(row.teamName() != null) {
+                    member.changeTeam(em.getReference(Team.class, teamId(row.teamName(), teamIds)));
+                }
+                members.add(member);
+            }
+
+            memberRepository.saveAll(members);
+            em.flush();
+            em.clear();
+        });
+
+        long chunkMillis = System.currentTimeMillis() - start;
+        result.chunkCompleted(chunk.size(), chunkMillis);
+        log.debug("member import chunk {} : {} rows, {} ms", result.getChunks(), chunk.size(), chunkMillis);
+
+        chunk.clear();
+    }
+
+
+    private Long teamId(String teamName, Map<String, Long> teamIds) {
+        return teamIds.computeIfAbsent(teamName, name -> teamRepository.findFirstByName(name)
+                .orElseGet(() -> teamRepository.save(new Team(name))).getId());
+    }
+
+
+    private static Iterator<String> lines(Reader reader) {
+        BufferedReader bufferedReader =
+                reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader);
+
+        return bufferedReader.lines().iterator();
+    }
+
+
+    private static int column(Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        if(index == null) {
+            throw new IllegalArgumentException("CSV 헤더에 " + name + " 컬럼이 없습니다: " + columns.keySet());
+        }
+
+        return index;
+    }
+
+
+    private static String value(String[] values, Integer index) {
+        if(index == null || index >= values.length || values[index].isBlank()) {
+            return null;
+        }
+
+        return values[index].trim();
+    }
+
+
+    private record MemberRow(String username, int age, String teamName) {
+
+    }
+}
@@ -0,0 +1,29 @@
+package study.datajpa.service;
+
+import java.util.Optional;
+import lombok.RequiredArgsConstructor;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.UsernameOnly;
+
+/**
+ * 회원 단건 조회(hot path). username 컬럼만 조회해서 캐시한다.
+ * 회원이 수정 / 삭제되면 {@link MemberCacheEvictListener} 가 캐시를 지운다.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class MemberQueryService {
+
+    public static final String USERNAME_CACHE = "memberUsername";
+
+    private final MemberRepository memberRepository;
+
+
+    @Cacheable(cacheNames = USERNAME_CACHE, unless = "#result == null")
+    public Optional<String> findUsername(Long id) {
+        return memberRepository.findUsernameOnlyById(id).map(UsernameOnly::getUsername);
+    }
+}
@@ -0,0 +1,96 @@
+package study.datajpa.service;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * 낙관적 락(@Version) 충돌 재시도. 작업을 새 트랜잭션(REQUIRES_NEW)에서 실행하고
+ * 커밋 때 {@link OptimisticLockingFailureException} 이 나면 쉬었다가 처음부터 다시 실행한다.
+ * <p>
+ * 대기 시간은 재시도마다 두 배로 늘리고 (maxBackoff 까지) 0 ~ 그 값 사이에서 무작위로 고른다. (같이 충돌한 트랜잭션끼리 다시 부딪히지 않게)
+ * 작업은 매번 엔티티를 새로 읽어야 한다. 바깥에서 읽어 둔 엔티티를 넘겨받아 고치면 재시도해도 같은 version 으로 다시 실패한다.
+ * maxAttempts 번 모두 실패하면 마지막 예외를 던진다.
+ * <p>
+ * 메트릭 : optimistic.retry (재시도 횟수), optimistic.retry.exhausted (포기 횟수)
+ */
+@Slf4j
+@Component
+public class OptimisticRetryExecutor {
+
+    private final TransactionTemplate transactionTemplate;
+    private final int maxAttempts;
+    private final long initialBackoffMillis;
+    private final long maxBackoffMillis;
+    private final Counter retries;
+    private final Counter exhausted;
+
+
+    public OptimisticRetryExecutor(PlatformTransactionManager transactionManager, MeterRegistry registry,
+            @Value("${datajpa.optimistic-retry.max-attempts:5}") int maxAttempts,
+            @Value("${datajpa.optimistic-retry.initial-backoff:10ms}") Duration initialBackoff,
+            @Value("${datajpa.optimistic-retry.max-backoff:200ms}") Duration maxBackoff) {
+        if(maxAttempts < 1) {
+            throw new IllegalArgumentException("datajpa.optimistic-retry.max-attempts must be positive : " + maxAttempts);
+        }
+
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffMillis = initialBackoff.toMillis();
+        this.maxBackoffMillis = maxBackoff.toMillis();
+        this.retries = Counter.builder("optimistic.retry").register(registry);
+        this.exhausted = Counter.builder("optimistic.retry.exhausted").register(registry);
+    }
+
+
+    public <T> T execute(Supplier<T> action) {
+        for(int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch(OptimisticLockingFailureException e) {
+                if(attempt >= maxAttempts) {
+                    exhausted.increment();
+                    log.warn("optimistic lock conflict, giving up after {} attempts", attempt);
+                    throw e;
+                }
+
+                retries.increment();
+                backoff(attempt, e);
+            }
+        }
+    }
+
+
+    public void run(Runnable action) {
+        execute(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+
+    private void backoff(int attempt, OptimisticLockingFailureException cause) {
+        long ceiling = Math.min(maxBackoffMillis, initialBackoffMillis << Math.min(attempt - 1, 20));
+
+        if(ceiling <= 0) {
+            return;
+        }
+
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling + 1));
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
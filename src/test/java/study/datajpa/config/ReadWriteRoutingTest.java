@@ -0,0 +1,149 @@
+package study.datajpa.config;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.sql.DataSource;
+import static org.assertj.core.api.Assertions.assertThat;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+/**
+ * primary / replica 를 서로 다른 H2 인메모리 DB 로 띄워서 어느 쪽으로 갔는지 데이터로 구분한다.
+ */
+@SpringBootTest(properties = {"spring.datasource.url=jdbc:h2:mem:primary;DB_CLOSE_DELAY=-1",
+        "datajpa.datasource.replica.url=jdbc:h2:mem:replica;DB_CLOSE_DELAY=-1",
+        "datajpa.in-list.temp-table-threshold=3"})
+class ReadWriteRoutingTest {
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+
+    @BeforeEach
+    void copySchemaToReplica() {
+        JdbcTemplate replica = new JdbcTemplate(replicaDataSource);
+
+        if(replica.queryForObject("select count(*) from information_schema.tables where table_name = 'MEMBER'",
+                Integer.class) > 0) {
+            return;
+        }
+
+        // hibernate 는 primary 에만 스키마를 만든다
+        List<String> script = new JdbcTemplate(primaryDataSource).queryForList("script nodata", String.class);
+        script.stream().filter(sql -> !sql.startsWith("CREATE USER")).forEach(replica::execute);
+    }
+
+
+    @Test
+    void readOnlyGoesToReplicaAndWritesToPrimary() {
+        memberRepository.save(new Member("routing", 10));
+
+        // save 는 primary 에만 들어갔다
+        assertThat(memberRepository.findReadOnlyByUsername("routing")).isNull();
+        // 락 조회는 primary
+        assertThat(memberRepository.findMemberLockByUsername("routing")).hasSize(1);
+
+        new JdbcTemplate(replicaDataSource).update(
+                "insert into member (member_id, username, age, version) values (next value for member_seq, 'routing', 10, 0)");
+
+        assertThat(memberRepository.findReadOnlyByUsername("routing")).isNotNull();
+    }
+
+
+    @Test
+    void findByNamesTempTableRunsOnPrimary() {
+        memberRepository.save(new Member("names1", 10));
+        memberRepository.save(new Member("names2", 10));
+        memberRepository.save(new Member("names3", 10));
+
+        // 임시 테이블(3 개 이상)은 쓰기 트랜잭션이라 primary, in 절은 replica
+        assertThat(memberRepository.findByNames(List.of("names1", "names2", "names3"))).hasSize(3);
+        assertThat(memberRepository.findByNames(List.of("names1", "names2"))).isEmpty();
+        // 읽기 전용 트랜잭션 안에서는 임시 테이블을 만들 수 없으니 in 절로 replica
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+        List<Member> inReadOnly = readOnly.execute(
+                status -> memberRepository.findByNames(List.of("names1", "names2", "names3")));
+        assertThat(inReadOnly).isEmpty();
+    }
+
+
+    @Test
+    void fallbackToPrimaryWhenReplicaLags() throws Exception {
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ReplicaDataSource dataSource = new ReplicaDataSource(replicaDataSource, primaryDataSource, "select 10",
+                Duration.ofSeconds(5), Duration.ZERO, Duration.ZERO, registry);
+
+        try(Connection connection = dataSource.getConnection()) {
+            assertThat(connection.getMetaData().getURL()).contains("mem:primary");
+        }
+
+        assertThat(registry.get("datasource.replica.fallback").tag("reason", "lag").counter().count()).isEqualTo(1);
+    }
+
+
+    @Test
+    void replicaWithinMaxLag() throws Exception {
+        ReplicaDataSource dataSource = new ReplicaDataSource(replicaDataSource, primaryDataSource, "select 1",
+                Duration.ofSeconds(5), Duration.ZERO, Duration.ZERO, new SimpleMeterRegistry());
+
+        try(Connection connection = dataSource.getConnection()) {
+            assertThat(connection.getMetaData().getURL()).contains("mem:replica");
+        }
+    }
+
+
+    @Test
+    void unavailableReplicaIsSkippedForRetryInterval() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        DataSource down = new AbstractDataSource() {
+            @Override
+            public Connection getConnection() throws SQLException {
+                attempts.incrementAndGet();
+                throw new SQLException("replica down");
+            }
+
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                return getConnection();
+            }
+        };
+        MeterRegistry registry = new SimpleMeterRegistry();
+        ReplicaDataSource dataSource = new ReplicaDataSource(down, primaryDataSource, "", Duration.ofSeconds(5),
+                Duration.ZERO, Duration.ofMinutes(1), registry);
+
+        for(int i = 0; i < 3; i++) {
+            try(Connection connection = dataSource.getConnection()) {
+                assertThat(connection.getMetaData().getURL()).contains("mem:primary");
+            }
+        }
+
+        // 첫 실패 뒤로는 replica 를 시도하지 않는다
+        assertThat(attempts).hasValue(1);
+        assertThat(registry.get("datasource.replica.fallback").tag("reason", "unavailable").counter().count())
+                .isEqualTo(3);
+    }
+}
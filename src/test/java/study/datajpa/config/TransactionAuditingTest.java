@@ -0,0 +1,136 @@
+package study.datajpa.config;
+
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+/**
+ * 트랜잭션 단위로 커밋된 값을 봐야 하므로 테스트 트랜잭션 없이 돌린다.
+ */
+@SpringBootTest
+@DirtiesContext
+class TransactionAuditingTest {
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+
+    @Test
+    void sameAuditInTransaction() {
+        List<Member> members = new TransactionTemplate(transactionManager).execute(
+                status -> memberRepository.saveAllAndFlush(
+                        List.of(new Member("audit1", 10), new Member("audit2", 20))));
+
+        Member member1 = memberRepository.findById(members.get(0).getId()).orElseThrow();
+        Member member2 = memberRepository.findById(members.get(1).getId()).orElseThrow();
+
+        assertThat(member1.getCreateDate()).isNotNull().isEqualTo(member2.getCreateDate());
+        assertThat(member1.getUpdateDate()).isEqualTo(member1.getCreateDate());
+        assertThat(member1.getCreateBy()).isEqualTo(TransactionAuditing.SYSTEM_AUDITOR);
+        assertThat(member2.getUpdateBy()).isEqualTo(TransactionAuditing.SYSTEM_AUDITOR);
+    }
+
+
+    @Test
+    void updateInNextTransaction() throws InterruptedException {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        Long id = tx.execute(status -> memberRepository.save(new Member("audit3", 10)).getId());
+        Member saved = memberRepository.findById(id).orElseThrow();
+
+        Thread.sleep(10);
+        tx.executeWithoutResult(status -> memberRepository.findById(id).orElseThrow().setAge(11));
+        Member updated = memberRepository.findById(id).orElseThrow();
+
+        assertThat(updated.getCreateDate()).isEqualTo(saved.getCreateDate());
+        assertThat(updated.getUpdateDate()).isAfter(saved.getUpdateDate());
+    }
+
+
+    @Test
+    void requiresNewGetsOwnAudit() throws InterruptedException {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        Long[] ids = tx.execute(status -> {
+            Member outer1 = memberRepository.saveAndFlush(new Member("outer1", 10));
+            Long inner = requiresNew.execute(innerStatus -> {
+                sleep();
+                return memberRepository.saveAndFlush(new Member("inner", 10)).getId();
+            });
+            Member outer2 = memberRepository.saveAndFlush(new Member("outer2", 10));
+
+            return new Long[] {outer1.getId(), inner, outer2.getId()};
+        });
+
+        Member outer1 = memberRepository.findById(ids[0]).orElseThrow();
+        Member inner = memberRepository.findById(ids[1]).orElseThrow();
+        Member outer2 = memberRepository.findById(ids[2]).orElseThrow();
+
+        assertThat(outer2.getCreateDate()).isEqualTo(outer1.getCreateDate());
+        assertThat(inner.getCreateDate()).isAfter(outer1.getCreateDate());
+    }
+
+
+    @Test
+    void auditorFromPrincipal() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setUserPrincipal(() -> "user1");
+        request.addHeader("X-User-Id", "spoofed");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        try {
+            Long id = new TransactionTemplate(transactionManager).execute(
+                    status -> memberRepository.save(new Member("audit4", 10)).getId());
+
+            Member member = memberRepository.findById(id).orElseThrow();
+
+            assertThat(member.getCreateBy()).isEqualTo("user1");
+            assertThat(member.getUpdateBy()).isEqualTo("user1");
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+
+    @Test
+    void headerIgnoredUnlessTrusted() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("X-User-Id", "spoofed");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        try {
+            Long id = new TransactionTemplate(transactionManager).execute(
+                    status -> memberRepository.save(new Member("audit5", 10)).getId());
+
+            assertThat(memberRepository.findById(id).orElseThrow().getCreateBy())
+                    .isEqualTo(TransactionAuditing.SYSTEM_AUDITOR);
+            // 게이트웨이 헤더를 켠 경우 (트랜잭션 밖이라 부를 때마다 새로 구한다)
+            assertThat(new TransactionAuditing("X-User-Id").getCurrentAuditor()).contains("spoofed");
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+    }
+
+
+    private static void sleep() {
+        try {
+            Thread.sleep(10);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,105 @@
+package study.datajpa.controller;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.zip.GZIPInputStream;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class MemberControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TeamRepository teamRepository;
+
+
+    @Test
+    void findMember() throws Exception {
+        memberRepository.save(new Member("member1", 10));
+        Member member2 = memberRepository.save(new Member("member2", 20));
+
+        mockMvc.perform(get("/members/{id}", member2.getId())).andExpect(status().isOk())
+                .andExpect(content().string("member2"));
+        mockMvc.perform(get("/members2/{id}", member2.getId())).andExpect(status().isOk())
+                .andExpect(content().string("member2"));
+        mockMvc.perform(get("/members/{id}", member2.getId() + 100)).andExpect(status().isNotFound());
+    }
+
+
+    @Test
+    void exportMembers() throws Exception {
+        Team team = teamRepository.save(new Team("teamA"));
+        Member member1 = memberRepository.save(new Member("member1", 10, team));
+        memberRepository.save(new Member("member2", 20));
+
+        MvcResult csv = mockMvc.perform(get("/members/export").param("format", "CSV"))
+                .andExpect(request().asyncStarted()).andReturn();
+        assertThat(csv.getRequest().getAsyncContext().getTimeout()).isEqualTo(Duration.ofHours(1).toMillis()); // datajpa.export.timeout
+        mockMvc.perform(asyncDispatch(csv)).andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "text/csv;charset=UTF-8"))
+                .andExpect(header().string(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"members.csv\""))
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(content().string("id,username,age,team\n" + member1.getId() + ",member1,10,teamA\n"
+                        + (member1.getId() + 1) + ",member2,20,\n"));
+
+        MvcResult ndjson = mockMvc.perform(get("/members/export").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(ndjson)).andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_TYPE, "application/x-ndjson"))
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"));
+
+        assertThat(gunzip(ndjson.getResponse().getContentAsByteArray()).lines()).hasSize(2)
+                .first().asString().contains("\"username\":\"member1\"", "\"team\":\"teamA\"");
+    }
+
+
+    @Test
+    void acceptsGzip() throws Exception {
+        assertThat(MemberController.acceptsGzip("gzip, deflate")).isTrue();
+        assertThat(MemberController.acceptsGzip("deflate, GZIP;q=0.5")).isTrue();
+        assertThat(MemberController.acceptsGzip("*")).isTrue();
+        assertThat(MemberController.acceptsGzip(null)).isFalse();
+        assertThat(MemberController.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(MemberController.acceptsGzip("gzip;q=0.000, *")).isFalse(); // gzip 을 직접 적으면 * 보다 우선
+        assertThat(MemberController.acceptsGzip("deflate, *;q=0")).isFalse();
+        assertThat(MemberController.acceptsGzip("identity")).isFalse();
+
+        MvcResult refused = mockMvc.perform(get("/members/export").header(HttpHeaders.ACCEPT_ENCODING, "gzip;q=0"))
+                .andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(refused)).andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING));
+    }
+
+
+    private static String gunzip(byte[] bytes) throws IOException {
+        try(GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package study.datajpa.controller;
+
+import java.util.ArrayList;
+import java.util.List;
+import jakarta.persistence.EntityManagerFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+/**
+ * hibernate.use_subselect_fetch=true 일 때의 쿼리 수. 팀 수(150)가 default_batch_fetch_size(100) 보다 많아서
+ * batch 였다면 Team.members 초기화에 in 쿼리가 두 번 나간다.
+ */
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.use_subselect_fetch=true")
+@AutoConfigureMockMvc
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class MemberListFetchModeTest {
+
+    private static final int TEAMS = 150;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TeamRepository teamRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManagerFactory emf;
+
+    private Statistics statistics;
+
+
+    @BeforeEach
+    void setUp() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for(int i = 0; i < TEAMS; i++) {
+                Team team = teamRepository.save(new Team("team" + i));
+                memberRepository.save(new Member("member" + i, 10, team));
+            }
+        });
+
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+    }
+
+
+    @Test
+    void pagedMembersWithSubselectFetch() throws Exception {
+        List<Long> statementCounts = new ArrayList<>();
+
+        for(int size : new int[] {5, 20}) {
+            statistics.clear();
+
+            mockMvc.perform(get("/members").param("size", String.valueOf(size)))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.content.length()").value(size))
+                    .andExpect(jsonPath("$.content[?(@.teamName == null)]").isEmpty());
+
+            statementCounts.add(statistics.getPrepareStatementCount());
+        }
+
+        // Member.team 은 to-one 이라 계속 batch : member + count + team(in)
+        assertThat(statementCounts).containsExactly(3L, 3L);
+    }
+
+
+    @Test
+    void teamMembersLoadedBySubselect() {
+        statistics.clear();
+
+        int members = transactionTemplate.execute(status -> teamRepository.findAll().stream()
+                .mapToInt(team -> team.getMembers().size()).sum());
+
+        assertThat(members).isEqualTo(TEAMS);
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(2); // team + member(subselect)
+    }
+}
@@ -0,0 +1,125 @@
+package study.datajpa.controller;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.env.Environment;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+/**
+ * /members, /members/{id} 부하 테스트. 기본 test 태스크에서는 빠지고 ./gradlew loadTest 로 실행한다.
+ * 플랫폼 스레드 / 가상 스레드(-PjavaVersion=21 -PloadProfile=virtual) 결과를 비교한다.
+ * 동시 클라이언트 수, 측정 시간은 -Dload.clients, -Dload.duration(초) 로 바꿀 수 있다.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"datajpa.sql-capture.sample-rate=0", "server.tomcat.max-connections=10000"})
+class MemberLoadTest {
+
+    private static final int CLIENTS = Integer.getInteger("load.clients", 1_000);
+    private static final Duration DURATION = Duration.ofSeconds(Integer.getInteger("load.duration", 10));
+    private static final int MEMBER_COUNT = 1_000;
+
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private Environment environment;
+
+    private final HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(10)).build();
+    private List<Long> ids;
+
+
+    @BeforeEach
+    void setUp() {
+        List<Member> members = new ArrayList<>();
+        for(int i = 0; i < MEMBER_COUNT; i++) {
+            members.add(new Member("member" + i, i % 100));
+        }
+        ids = memberRepository.saveAll(members).stream().map(Member::getId).toList();
+    }
+
+
+    @Test
+    void members() throws InterruptedException {
+        run("/members", i -> "/members?page=" + ThreadLocalRandom.current().nextInt(50) + "&size=20");
+    }
+
+
+    @Test
+    void memberById() throws InterruptedException {
+        run("/members/{id}", i -> "/members/" + ids.get(ThreadLocalRandom.current().nextInt(ids.size())));
+    }
+
+
+    private void run(String name, IntFunction<String> path) throws InterruptedException {
+        long[][] latencies = new long[CLIENTS][];
+        AtomicLong errors = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(CLIENTS);
+        long deadline = System.nanoTime() + DURATION.toNanos();
+
+        for(int c = 0; c < CLIENTS; c++) {
+            int index = c;
+            Thread thread = new Thread(() -> {
+                long[] samples = new long[1024];
+                int n = 0;
+                try {
+                    for(int i = 0; System.nanoTime() < deadline; i++) {
+                        HttpRequest request =
+                                HttpRequest.newBuilder(URI.create("http://localhost:" + port + path.apply(i))).build();
+                        long start = System.nanoTime();
+                        try {
+                            if(client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode() != 200) {
+                                errors.incrementAndGet();
+                            }
+                        } catch(Exception e) {
+                            errors.incrementAndGet();
+                        }
+                        if(n == samples.length) {
+                            samples = Arrays.copyOf(samples, n * 2);
+                        }
+                        samples[n++] = System.nanoTime() - start;
+                    }
+                } finally {
+                    latencies[index] = Arrays.copyOf(samples, n);
+                    done.countDown();
+                }
+            });
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        done.await();
+
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        System.out.printf("[%s] profiles=%s clients=%d requests=%,d errors=%d throughput=%,.0f req/s p50=%.1f ms "
+                        + "p99=%.1f ms%n", name, Arrays.toString(environment.getActiveProfiles()), CLIENTS, all.length,
+                errors.get(), all.length / (double) DURATION.toSeconds(), percentile(all, 0.50), percentile(all, 0.99));
+
+        assertThat(all).isNotEmpty();
+        assertThat(errors.get()).isLessThan(all.length / 100 + 1);
+    }
+
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted.length == 0 ? 0 : sorted[(int) Math.min(sorted.length - 1, sorted.length * p)] / 1_000_000.0;
+    }
+}
@@ -3,13 +3,17 @@ package study.datajpa.entity;
 import java.util.List;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.Hibernate;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
 
 
-@SpringBootTest
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
 @Transactional
 @Rollback(value = false)
 class MemberTest {
@@ -47,4 +51,55 @@ class MemberTest {
         }
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void changeTeamDoesNotLoadMembers() {
+        Team teamA = new Team("teamA");
+        em.persist(teamA);
+
+        for(int i = 0; i < 100; i++) {
+            em.persist(new Member("member" + i, i, teamA));
+        }
+
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.unwrap(Session.class).getSessionFactory().getStatistics();
+        statistics.clear();
+
+        Team team = em.find(Team.class, teamA.getId());
+        Member member = new Member("newMember", 10, team);
+        em.persist(member);
+        em.flush();
+
+        assertThat(Hibernate.isInitialized(team.getMembers())).isFalse();
+        assertThat(statistics.getCollectionFetchCount()).isZero();
+        // select team, insert member (+ 시퀀스 할당). 팀 인원수와 무관하다
+        assertThat(statistics.getPrepareStatementCount()).isLessThanOrEqualTo(3);
+    }
+
+
+    @Test
+    void changeTeamIsVisibleWhenMembersLoadedLater() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+        em.persist(teamA);
+        em.persist(teamB);
+        em.persist(new Member("member1", 10, teamA));
+        Member moved = new Member("member2", 20, teamA);
+        em.persist(moved);
+
+        em.flush();
+        em.clear();
+
+        Team team = em.find(Team.class, teamB.getId());
+        Member created = new Member("newMember", 30, team);
+        em.persist(created);
+        em.find(Member.class, moved.getId()).changeTeam(team);
+
+        assertThat(Hibernate.isInitialized(team.getMembers())).isFalse();
+        // flush 전에 초기화해도 큐에 쌓인 add 가 반영된다
+        assertThat(team.getMembers()).extracting(Member::getUsername)
+                .containsExactlyInAnyOrder("newMember", "member2");
+    }
+}
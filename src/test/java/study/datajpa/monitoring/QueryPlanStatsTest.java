@@ -0,0 +1,70 @@
+package study.datajpa.monitoring;
+
+import java.util.Map;
+import jakarta.persistence.EntityManager;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.assertj.core.api.InstanceOfAssertFactories;
+import org.hibernate.Session;
+import org.hibernate.stat.QueryStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.repository.MemberJpaRepository;
+import study.datajpa.repository.MemberRepository;
+
+
+@SpringBootTest
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class QueryPlanStatsTest {
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private MemberJpaRepository memberJpaRepository;
+    @Autowired
+    private QueryPlanEndpoint queryPlanEndpoint;
+    @Autowired
+    private EntityManager em;
+
+
+    @Test
+    void queriesArePrecompiledAtStartup() {
+        Statistics statistics = em.unwrap(Session.class).getSessionFactory().getStatistics();
+        String findUserNames = "select m.username from Member m"; // @Query
+        String totalCount = "select count(m) from Member m where m.age = :age"; // MemberJpaRepository
+
+        QueryStatistics userNames = statistics.getQueryStatistics(findUserNames);
+        QueryStatistics count = statistics.getQueryStatistics(totalCount);
+        long userNamesCompilation = userNames.getPlanCompilationTotalMicroseconds();
+        long countCompilation = count.getPlanCompilationTotalMicroseconds();
+
+        assertThat(userNames.getPlanCacheMissCount()).isEqualTo(1);
+        assertThat(count.getPlanCacheMissCount()).isEqualTo(1);
+
+        memberRepository.findUserNames();
+        memberJpaRepository.totalCount(10);
+
+        // 첫 호출도 파싱하지 않는다 (파싱된 계획을 캐시에서 찾음)
+        assertThat(userNames.getPlanCompilationTotalMicroseconds()).isEqualTo(userNamesCompilation);
+        assertThat(count.getPlanCompilationTotalMicroseconds()).isEqualTo(countCompilation);
+        assertThat(userNames.getPlanCacheHitCount()).isGreaterThanOrEqualTo(2);
+        assertThat(count.getPlanCacheHitCount()).isGreaterThanOrEqualTo(2);
+    }
+
+
+    @Test
+    void endpointSummary() {
+        memberRepository.findUserNames();
+
+        Map<String, Object> summary = queryPlanEndpoint.summary(5);
+
+        assertThat((long) summary.get("hits")).isPositive();
+        assertThat((long) summary.get("misses")).isPositive();
+        assertThat((int) summary.get("distinctQueries")).isGreaterThan(20);
+        assertThat(summary.get("queries")).asInstanceOf(InstanceOfAssertFactories.LIST).hasSize(5);
+    }
+}
@@ -0,0 +1,86 @@
+package study.datajpa.monitoring;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManager;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.system.CapturedOutput;
+import org.springframework.boot.test.system.OutputCaptureExtension;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+
+@SpringBootTest
+@AutoConfigureMockMvc
+@ExtendWith(OutputCaptureExtension.class)
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class RepositoryMetricsTest {
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TeamRepository teamRepository;
+    @Autowired
+    private MeterRegistry registry;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private MockMvc mockMvc;
+
+
+    @Test
+    void sqlStatementsPerCall() throws Exception {
+        Team team = teamRepository.save(new Team("teamA"));
+        for(int i = 0; i < 3; i++) {
+            memberRepository.save(new Member("member" + i, 10, team));
+        }
+
+        em.flush();
+        em.clear();
+
+        memberRepository.findMemberFetchJoin();
+
+        DistributionSummary statements = registry.get("repository.sql.statements")
+                .tags("repository", "MemberRepository", "method", "findMemberFetchJoin").summary();
+        DistributionSummary entities = registry.get("repository.entities.loaded")
+                .tags("repository", "MemberRepository", "method", "findMemberFetchJoin").summary();
+
+        assertThat(statements.count()).isEqualTo(1);
+        assertThat(statements.totalAmount()).isEqualTo(1); // fetch join 한번
+        assertThat(entities.totalAmount()).isEqualTo(4); // member 3 + team 1
+
+        mockMvc.perform(get("/actuator/metrics/repository.sql.statements")
+                        .param("tag", "method:findMemberFetchJoin"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.measurements[?(@.statistic == 'TOTAL')].value").value(1.0));
+    }
+
+
+    /**
+     * generate_statistics 를 켜 두어도 세션(트랜잭션)마다 Session Metrics 로그를 남기지 않는다.
+     */
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    void noSessionMetricsLog(CapturedOutput output) {
+        // 호출마다 자기 트랜잭션 / 세션을 열고 닫는다
+        memberRepository.findAll();
+        memberRepository.count();
+
+        assertThat(output).doesNotContain("Session Metrics");
+    }
+}
@@ -0,0 +1,82 @@
+package study.datajpa.monitoring;
+
+import java.time.Duration;
+import java.util.List;
+import static org.assertj.core.api.Assertions.assertThat;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+
+@SpringBootTest(properties = {"datajpa.sql-capture.sample-rate=1", "datajpa.sql-capture.log=false"})
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class SqlCaptureTest {
+
+    @Autowired
+    private SqlCapture sqlCapture;
+    @Autowired
+    private MemberRepository memberRepository;
+
+
+    @Test
+    void normalize() {
+        assertThat(SqlCapture.normalize("select m1_0.member_id\n  from member m1_0 where m1_0.username in (?, ?,?)"))
+                .isEqualTo("select m1_0.member_id from member m1_0 where m1_0.username in (...)");
+        assertThat(SqlCapture.normalize("select * from member where username = 'it''s' and age > 10"))
+                .isEqualTo("select * from member where username = ? and age > ?");
+    }
+
+
+    @Test
+    void topStatements() {
+        memberRepository.save(new Member("member1", 10));
+        memberRepository.save(new Member("member2", 20));
+        sqlCapture.reset();
+
+        memberRepository.findByNames(List.of("member1"));
+        memberRepository.findByNames(List.of("member1", "member2"));
+
+        List<SqlCapture.StatementSummary> top = sqlCapture.top(10);
+
+        // in 목록 길이가 달라도 같은 SQL 로 모인다
+        assertThat(top).filteredOn(summary -> summary.sql().contains("in (...)")).singleElement()
+                .satisfies(summary -> assertThat(summary.count()).isEqualTo(2));
+    }
+
+
+    @Test
+    void statsCoverUnsampledExecutions() {
+        // 샘플링 0 : 느린 쿼리만 로그로 가지만 통계는 모든 실행
+        SqlCapture capture = new SqlCapture(0, Duration.ofMillis(100), 16, 100, false);
+        try {
+            for(int i = 0; i < 99; i++) {
+                capture.afterQuery(execution(10), List.of(new QueryInfo("select * from member where age = 10")));
+            }
+            capture.afterQuery(execution(1_000), List.of(new QueryInfo("select * from member where age = 20")));
+
+            assertThat(capture.top(1)).singleElement().satisfies(summary -> {
+                assertThat(summary.count()).isEqualTo(100);
+                assertThat(summary.totalMillis()).isEqualTo(99 * 10 + 1_000);
+                assertThat(summary.avgMillis()).isEqualTo(19);
+                assertThat(summary.maxMillis()).isEqualTo(1_000);
+            });
+        } finally {
+            capture.destroy();
+        }
+    }
+
+
+    private static ExecutionInfo execution(long elapsedMillis) {
+        ExecutionInfo execution = new ExecutionInfo();
+        execution.setElapsedTime(elapsedMillis);
+
+        return execution;
+    }
+}
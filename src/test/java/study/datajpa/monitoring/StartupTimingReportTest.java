@@ -0,0 +1,45 @@
+package study.datajpa.monitoring;
+
+import java.time.Duration;
+import java.util.Map;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.context.metrics.buffering.BufferingApplicationStartup;
+import org.springframework.context.ConfigurableApplicationContext;
+import study.datajpa.SpringDataJpaApplication;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+/**
+ * main() 과 같은 방식(BufferingApplicationStartup)으로 띄워서 단계별 시간을 확인한다. repository 는 deferred 초기화.
+ */
+class StartupTimingReportTest {
+
+    @Test
+    void phases() {
+        BufferingApplicationStartup startup = new BufferingApplicationStartup(10_000);
+
+        try(ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringDataJpaApplication.class)
+                .applicationStartup(startup)
+                .properties("server.port=0", "spring.datasource.url=jdbc:h2:mem:startup;DB_CLOSE_DELAY=-1",
+                        "spring.data.jpa.repositories.bootstrap-mode=deferred", "datajpa.query-warmup.timing=ready")
+                .run()) {
+
+            Map<String, Duration> phases = StartupTimingReport.phases(startup.getBufferedTimeline());
+
+            assertThat(phases).containsOnlyKeys("datasource", "entityManagerFactory", "repositories", "web", "refresh");
+            assertThat(phases.get("repositories")).isPositive();
+            assertThat(phases.get("web")).isPositive();
+            assertThat(phases.get("refresh")).isGreaterThan(phases.get("web"));
+
+            // deferred 초기화는 부트의 applicationTaskExecutor 에서 돈다
+            assertThat(context.containsBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)).isTrue();
+
+            MemberRepository memberRepository = context.getBean(MemberRepository.class);
+            memberRepository.save(new Member("member1", 10));
+            assertThat(memberRepository.findByUsername("member1")).hasSize(1);
+        }
+    }
+}
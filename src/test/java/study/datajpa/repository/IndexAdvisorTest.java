@@ -0,0 +1,78 @@
+package study.datajpa.repository;
+
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import study.datajpa.repository.IndexAdvisor.IndexAdvice;
+
+@SpringBootTest
+class IndexAdvisorTest {
+
+    @Autowired
+    private IndexAdvisor indexAdvisor;
+
+
+    @Test
+    void repositoryQueriesUseIndexes() {
+        List<IndexAdvice> advices = indexAdvisor.adviseRepositories();
+
+        // 쿼리를 추가했는데 인덱스가 없으면 여기서 걸린다
+        assertThat(advices).allSatisfy(advice -> {
+            assertThat(advice.unindexedFilters()).as(advice.toString()).isEmpty();
+            assertThat(advice.unindexedSorts()).as(advice.toString()).isEmpty();
+        });
+
+        Map<String, IndexAdvice> bySource = advices.stream()
+                .collect(Collectors.toMap(IndexAdvice::source, Function.identity(), (first, second) -> first));
+        assertThat(bySource).containsKeys("MemberRepository.findByUsername", "MemberRepository.findByAgeOrderByIdAsc",
+                "MemberRepository.findAllByOrderByUsernameAscIdAsc", "TeamRepository.findFirstByName",
+                "@NamedQuery findByUsername", "MemberJpaRepository");
+    }
+
+
+    @Test
+    void pagedQueryWithPageableSortIsFlagged() {
+        IndexAdvice findByAge = indexAdvisor.adviseRepositories().stream()
+                .filter(advice -> advice.source().equals("MemberRepository.findByAge")).findFirst().orElseThrow();
+
+        assertThat(findByAge.dynamicSort()).isTrue();
+        assertThat(findByAge.hasIssues()).isTrue();
+        // idx_member_age_username (age, username, member_id), idx_member_age (age, member_id)
+        assertThat(findByAge.sortableColumns()).containsExactlyInAnyOrder("member.username", "member.member_id");
+    }
+
+
+    @Test
+    void sortAfterFilterUsesCompositeIndex() {
+        // findByPage : age 조건 뒤 username 정렬 -> (age, username)
+        assertThat(indexAdvisor.advise("select m from Member m where m.age = :age order by m.username desc")
+                .hasIssues()).isFalse();
+        // username 조건 뒤 age 정렬 -> (username, age)
+        assertThat(indexAdvisor.advise("select m from Member m where m.username = :username order by m.age")
+                .hasIssues()).isFalse();
+        // 조건 없는 pk 정렬, 연관관계 id 는 fk 컬럼
+        assertThat(indexAdvisor.advise("select m from Member m order by m.id").hasIssues()).isFalse();
+        assertThat(indexAdvisor.advise("select m from Member m where m.team.id = :teamId").hasIssues()).isFalse();
+    }
+
+
+    @Test
+    void unindexedColumnsAreReported() {
+        IndexAdvice version = indexAdvisor.advise("select m from Member m where m.version > :version");
+        IndexAdvice sort = indexAdvisor.advise("select m from Member m where m.age = :age order by m.createDate");
+        IndexAdvice join = indexAdvisor.advise(
+                "select m from Member m join fetch m.team t where t.version = 0 order by t.name, m.username");
+
+        assertThat(version.unindexedFilters()).containsExactly("member.version");
+        assertThat(sort.unindexedFilters()).isEmpty();
+        assertThat(sort.unindexedSorts()).containsExactly("member.create_date");
+        assertThat(join.unindexedFilters()).containsExactly("team.version");
+        // 정렬이 두 테이블에 걸치면 인덱스 순서로 읽을 수 없다
+        assertThat(join.unindexedSorts()).containsExactly("team.name", "member.username");
+    }
+}
@@ -0,0 +1,80 @@
+package study.datajpa.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import jakarta.persistence.EntityManager;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+
+/**
+ * 시퀀스 식별자 + JDBC batch insert 처리량 비교. 건수는 -Dbatch.insert.count 로 바꿀 수 있다.
+ * (기본 1,000, ./gradlew loadTest 에서는 100,000)
+ */
+@Tag("load")
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class MemberBatchInsertTest {
+
+    private static final int COUNT = Integer.getInteger("batch.insert.count", 1_000);
+    private static final int CHUNK = 1_000;
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private EntityManager em;
+
+
+    @Test
+    void saveAllBatchVsSingle() {
+        Statistics statistics = em.unwrap(Session.class).getSessionFactory().getStatistics();
+
+        // batch 끔 : insert 한건당 statement 한번 실행
+        em.unwrap(Session.class).setJdbcBatchSize(1);
+        statistics.clear();
+        long single = insert("single");
+        long singleStatements = statistics.getPrepareStatementCount();
+
+        // batch_size(50) 적용
+        em.unwrap(Session.class).setJdbcBatchSize(null);
+        statistics.clear();
+        long batch = insert("batch");
+        long batchStatements = statistics.getPrepareStatementCount();
+
+        System.out.printf("single : %,d rows/s (%,d statements)%n", COUNT * 1000L / Math.max(single, 1), singleStatements);
+        System.out.printf("batch  : %,d rows/s (%,d statements)%n", COUNT * 1000L / Math.max(batch, 1), batchStatements);
+
+        assertThat(memberRepository.count()).isEqualTo(COUNT * 2L);
+        assertThat(batchStatements).isLessThan(singleStatements / 10);
+    }
+
+
+    private long insert(String prefix) {
+        long start = System.currentTimeMillis();
+
+        List<Member> chunk = new ArrayList<>(CHUNK);
+        for(int i = 0; i < COUNT; i++) {
+            chunk.add(new Member(prefix + i, i % 100));
+
+            if(chunk.size() == CHUNK) {
+                memberRepository.saveAll(chunk);
+                em.flush();
+                em.clear();
+                chunk.clear();
+            }
+        }
+        memberRepository.saveAll(chunk);
+        em.flush();
+        em.clear();
+
+        return System.currentTimeMillis() - start;
+    }
+}
@@ -91,6 +91,24 @@ class MemberJpaRepositoryTest {
     }
 
 
+    @Test
+    void findByPageAfter() {
+
+        for(int i = 1; i <= 5; i++) {
+            memberJpaRepository.save(new Member("member" + i, 10));
+        }
+
+        List<Member> offsetPage = memberJpaRepository.findByPage(10, 3, 3);
+
+        List<Member> firstPage = memberJpaRepository.findByPageAfter(10, null, null, 3);
+        Member last = firstPage.get(firstPage.size() - 1);
+        List<Member> secondPage = memberJpaRepository.findByPageAfter(10, last.getUsername(), last.getId(), 3);
+
+        assertThat(firstPage).extracting(Member::getUsername).containsExactly("member5", "member4", "member3");
+        assertThat(secondPage).containsExactlyElementsOf(offsetPage);
+    }
+
+
     @Test
     void test5() {
 
@@ -0,0 +1,92 @@
+package study.datajpa.repository;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.annotation.DirtiesContext;
+import study.datajpa.config.AsyncConfig;
+import study.datajpa.dto.MemberDto;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+
+@SpringBootTest(properties = {"datajpa.async.pool-size=1", "datajpa.async.queue-capacity=1"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class MemberRepositoryAsyncTest {
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TeamRepository teamRepository;
+    @Autowired
+    @Qualifier(AsyncConfig.REPOSITORY_EXECUTOR)
+    private ThreadPoolTaskExecutor repositoryExecutor;
+    @Autowired
+    private ApplicationContext applicationContext;
+
+
+    @Test
+    void findMemberDtoAsync() {
+        Team team = teamRepository.save(new Team("teamA"));
+        memberRepository.save(new Member("member1", 10, team));
+        memberRepository.save(new Member("member2", 10, team));
+
+        List<MemberDto> dtos = memberRepository.findMemberDtoAsync().join();
+
+        assertThat(dtos).extracting(MemberDto::getTeamName).containsOnly("teamA");
+
+        Page<MemberDto> page = memberRepository.findMemberDtoAsyncByAge(10,
+                PageRequest.of(0, 1, Sort.by("username"))).join();
+
+        assertThat(page.getContent()).extracting(MemberDto::getUsername).containsExactly("member1");
+        assertThat(page.getTotalElements()).isEqualTo(2);
+    }
+
+
+    @Test
+    void rejectWhenSaturated() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+
+        // 스레드 하나, 큐 1 인 실행기를 점유
+        repositoryExecutor.execute(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch(InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        started.await();
+        repositoryExecutor.execute(() -> {});
+
+        try {
+            assertThatThrownBy(() -> memberRepository.findMemberDtoAsync())
+                    .isInstanceOf(TaskRejectedException.class);
+        } finally {
+            release.countDown();
+        }
+    }
+
+
+    @Test
+    void applicationTaskExecutorIsKept() {
+        // repositoryExecutor 가 있어도 부트 기본 실행기(@Async, MVC 비동기)는 남아 있어야 한다
+        assertThat(applicationContext.containsBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME))
+                .isTrue();
+        assertThat(applicationContext.getBean(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME))
+                .isNotSameAs(repositoryExecutor);
+    }
+}
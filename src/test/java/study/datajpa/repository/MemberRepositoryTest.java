@@ -1,24 +1,36 @@
 package study.datajpa.repository;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import jakarta.persistence.EntityManager;
 import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.Session;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.ScrollPosition;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.domain.Sort;
+import org.springframework.data.domain.Window;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.annotation.Rollback;
 import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.dto.MemberColumns;
 import study.datajpa.dto.MemberDto;
+import study.datajpa.dto.MemberRow;
 import study.datajpa.entity.Member;
 import study.datajpa.entity.Team;
 
 
-@SpringBootTest
+@SpringBootTest(properties = {"spring.jpa.properties.hibernate.generate_statistics=true",
+        "datajpa.in-list.temp-table-threshold=5000"})
 @Transactional
 @Rollback(value = false)
 @DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
@@ -149,6 +161,56 @@ class MemberRepositoryTest {
     }
 
 
+    @Test
+    void findByNamesSplitLargeInList() {
+        List<String> names = saveMembers(1_000);
+        names.addAll(names.subList(0, 300)); // 중복은 한 번만 찾는다
+        for(int i = 0; i < 300; i++) {
+            names.add("unknown" + i);
+        }
+
+        em.flush();
+        em.clear();
+        Statistics statistics = em.unwrap(Session.class).getSessionFactory().getStatistics();
+        statistics.clear();
+
+        List<Member> members = memberRepository.findByNames(names);
+
+        assertThat(members).hasSize(1_000).doesNotHaveDuplicates();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3); // 1300 개 -> 512 + 512 + 276
+    }
+
+
+    @Test
+    void findByNamesWithTempTable() {
+        List<String> names = saveMembers(100);
+        for(int i = 0; i < 5_000; i++) {
+            names.add("unknown" + i);
+        }
+
+        em.flush();
+        em.clear();
+
+        List<Member> members = memberRepository.findByNames(names);
+
+        assertThat(members).hasSize(100);
+        // 임시 테이블은 조회 후 비워진다
+        assertThat(em.createNativeQuery("select count(*) from tmp_member_names").getSingleResult())
+                .isEqualTo(0L);
+    }
+
+
+    private List<String> saveMembers(int count) {
+        List<Member> members = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            members.add(new Member("member" + i, i % 100));
+        }
+        memberRepository.saveAll(members);
+
+        return new ArrayList<>(members.stream().map(Member::getUsername).toList());
+    }
+
+
     @Test
     void test2() {
 
@@ -168,6 +230,59 @@ class MemberRepositoryTest {
     }
 
 
+    @Test
+    void findMemberRowsAndColumns() {
+        Team teamA = teamRepository.save(new Team("teamA"));
+        Team teamB = teamRepository.save(new Team("teamB"));
+        Member member1 = memberRepository.save(new Member("member1", 10, teamA));
+        Member member2 = memberRepository.save(new Member("member2", 20, teamA));
+        Member member3 = memberRepository.save(new Member("member3", 30, teamB));
+        memberRepository.save(new Member("noTeam", 40)); // findMemberDto 처럼 팀 없는 회원은 빠진다
+
+        // flush 전이어도 보인다
+        List<MemberRow> rows = memberRepository.findMemberRows();
+        MemberColumns columns = memberRepository.findMemberColumns();
+
+        assertThat(rows).containsExactlyInAnyOrder(new MemberRow(member1.getId(), "member1", "teamA"),
+                new MemberRow(member2.getId(), "member2", "teamA"), new MemberRow(member3.getId(), "member3", "teamB"));
+        assertThat(columns.size()).isEqualTo(3);
+        assertThat(columns.ids()).containsExactlyInAnyOrder(member1.getId(), member2.getId(), member3.getId());
+
+        List<String> teamANames = new ArrayList<>();
+        for(int i = 0; i < columns.size(); i++) {
+            assertThat(rows).contains(columns.row(i));
+            if(columns.teamName(i).equals("teamA")) {
+                teamANames.add(columns.teamName(i));
+            }
+        }
+        // 같은 팀 이름은 같은 인스턴스
+        assertThat(teamANames).hasSize(2);
+        assertThat(teamANames.get(0)).isSameAs(teamANames.get(1));
+    }
+
+
+    @Test
+    void findMemberRowsWithManyTeams() {
+        int teams = 300; // 팀 이름 캐시가 여러 번 커지고, team_id 가 Long 캐시 범위(127)를 넘는다
+        for(int i = 0; i < teams; i++) {
+            Team team = teamRepository.save(new Team("team" + i));
+            memberRepository.save(new Member("a" + i, 10, team));
+            memberRepository.save(new Member("b" + i, 10, team));
+        }
+
+        Map<String, String> teamByUsername = new HashMap<>();
+        Map<String, List<String>> namesByTeam = new HashMap<>();
+        for(MemberRow row : memberRepository.findMemberRows()) {
+            teamByUsername.put(row.username(), row.teamName());
+            namesByTeam.computeIfAbsent(row.teamName(), key -> new ArrayList<>()).add(row.teamName());
+        }
+
+        assertThat(teamByUsername).hasSize(teams * 2).containsEntry("a0", "team0").containsEntry("b299", "team299");
+        assertThat(namesByTeam).hasSize(teams)
+                .allSatisfy((name, names) -> assertThat(names.get(0)).isSameAs(names.get(1)));
+    }
+
+
     @Test
     void test3() {
 
@@ -219,6 +334,76 @@ class MemberRepositoryTest {
     }
 
 
+    @Test
+    @DisplayName("count 쿼리 생략 / 캐시")
+    void findByAgeCountMode() {
+
+        for(int i = 1; i <= 5; i++) {
+            memberRepository.save(new Member("member" + i, 10));
+        }
+
+        PageRequest pageRequest = PageRequest.of(0, 3, Sort.by(Sort.Direction.DESC, "username"));
+
+        Slice<Member> slice = memberRepository.findByAge(10, pageRequest, CountMode.NONE);
+
+        assertThat(slice).isNotInstanceOf(Page.class);
+        assertThat(slice.getContent()).extracting(Member::getUsername)
+                .containsExactly("member5", "member4", "member3");
+        assertThat(slice.hasNext()).isTrue();
+
+        Page<Member> cached = (Page<Member>) memberRepository.findByAge(10, pageRequest, CountMode.CACHED);
+
+        assertThat(cached.getTotalElements()).isEqualTo(5);
+
+        em.persist(new Member("member6", 10)); // repository 를 거치지 않으면 캐시가 그대로 남는다
+
+        assertThat(((Page<Member>) memberRepository.findByAge(10, pageRequest, CountMode.CACHED)).getTotalElements())
+                .isEqualTo(5);
+        assertThat(((Page<Member>) memberRepository.findByAge(10, pageRequest, CountMode.EXACT)).getTotalElements())
+                .isEqualTo(6);
+
+        memberRepository.save(new Member("member7", 10)); // save 하면 캐시 무효화
+
+        assertThat(((Page<Member>) memberRepository.findByAge(10, pageRequest, CountMode.CACHED)).getTotalElements())
+                .isEqualTo(7);
+    }
+
+
+    @Test
+    @DisplayName("keyset 페이징")
+    void scrollByKeyset() {
+
+        for(int i = 0; i < 5; i++) {
+            memberRepository.save(new Member("member" + i, 10));
+        }
+        memberRepository.save(new Member("member2", 10)); // username 중복 -> id 로 구분
+        memberRepository.save(new Member("other", 20));
+
+        Window<Member> first = memberRepository.findByAgeOrderByIdAsc(10, ScrollPosition.keyset(), Limit.of(4));
+
+        assertThat(first.getContent()).hasSize(4);
+        assertThat(first.hasNext()).isTrue();
+
+        Window<Member> second =
+                memberRepository.findByAgeOrderByIdAsc(10, first.positionAt(first.size() - 1), Limit.of(4));
+
+        assertThat(second.getContent()).hasSize(2);
+        assertThat(second.hasNext()).isFalse();
+
+        List<String> usernames = new ArrayList<>();
+        String cursor = null;
+        do {
+            Window<Member> window =
+                    memberRepository.findAllByOrderByUsernameAscIdAsc(MemberCursor.decode(cursor), Limit.of(3));
+            window.forEach(m -> usernames.add(m.getUsername()));
+            cursor = window.hasNext() ? MemberCursor.encode(window.getContent().get(window.size() - 1)) : null;
+        } while(cursor != null);
+
+        assertThat(usernames).containsExactly("member0", "member1", "member2", "member2", "member3", "member4",
+                "other");
+    }
+
+
     @Test
     void test5() {
 
@@ -244,6 +429,26 @@ class MemberRepositoryTest {
     }
 
 
+    @Test
+    void bulkChangeTeam() {
+        Team teamA = new Team("teamA");
+        Team teamB = new Team("teamB");
+
+        teamRepository.save(teamA);
+        teamRepository.save(teamB);
+
+        Member member1 = memberRepository.save(new Member("member1", 10, teamA));
+        Member member2 = memberRepository.save(new Member("member2", 20, teamA));
+        Member member3 = memberRepository.save(new Member("member3", 30, teamA));
+
+        int count = memberRepository.bulkChangeTeam(List.of(member1.getId(), member2.getId()), teamB);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(memberRepository.findById(member1.getId()).get().getTeam().getName()).isEqualTo("teamB");
+        assertThat(memberRepository.findById(member3.getId()).get().getTeam().getName()).isEqualTo("teamA");
+    }
+
+
     @Test
     void findMemberLazy() {
         Team teamA = new Team("teamA");
@@ -271,6 +476,34 @@ class MemberRepositoryTest {
     }
 
 
+    @Test
+    @DisplayName("batch fetch : 페이지 크기와 상관없이 쿼리 수가 일정")
+    void findAllPageWithTeamName() {
+        for(int i = 0; i < 40; i++) {
+            Team team = teamRepository.save(new Team("team" + i));
+            memberRepository.save(new Member("member" + i, 10, team));
+        }
+
+        em.flush();
+        em.clear();
+
+        Statistics statistics = em.unwrap(Session.class).getSessionFactory().getStatistics();
+        List<Long> statementCounts = new ArrayList<>();
+
+        for(int size : new int[] {5, 20}) {
+            statistics.clear();
+
+            Slice<MemberDto> page = memberRepository.findAll(PageRequest.of(0, size), CountMode.EXACT).map(MemberDto::new);
+
+            assertThat(page.getContent()).hasSize(size).allMatch(dto -> dto.getTeamName() != null);
+            statementCounts.add(statistics.getPrepareStatementCount());
+            em.clear();
+        }
+
+        assertThat(statementCounts.get(1)).isEqualTo(statementCounts.get(0)); // member + count + team(in)
+    }
+
+
     @Test
     void findMemberFetchJoin() {
         Team teamA = new Team("teamA");
@@ -0,0 +1,126 @@
+package study.datajpa.repository;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+import jakarta.persistence.EntityManager;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.Session;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+/**
+ * 스트리밍 조회시 영속성 컨텍스트에 엔티티가 쌓이지 않고, 소비하는 동안에는 지연 로딩이 되는지 확인. 건수는 -Dstream.test.count 로 바꿀 수 있다.
+ * (기본 10,000, ./gradlew loadTest 에서는 1,000,000)
+ */
+@Tag("load")
+@SpringBootTest
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class MemberStreamTest {
+
+    private static final int COUNT = Integer.getInteger("stream.test.count", 10_000);
+    private static final int TEAMS = 3;
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private MemberJpaRepository memberJpaRepository;
+    @Autowired
+    private TeamJpaRepository teamJpaRepository;
+    @Autowired
+    private EntityManager em;
+
+
+    @BeforeEach
+    void setUp() {
+        // 엔티티를 거치지 않고 DB 에서 바로 생성. 짝수 회원만 팀이 있다
+        em.createNativeQuery("insert into team (team_id, name, version) "
+                + "select x, concat('team', x), 0 from system_range(1, :teams)")
+                .setParameter("teams", TEAMS).executeUpdate();
+        em.createNativeQuery("insert into member (member_id, username, age, version, teal_id) "
+                + "select x, concat('member', x), mod(x, 100), 0, case when mod(x, 2) = 0 then mod(x, :teams) + 1 end "
+                + "from system_range(1, :count)")
+                .setParameter("teams", TEAMS).setParameter("count", COUNT).executeUpdate();
+    }
+
+
+    @Test
+    void streamAllMemberCustom() {
+        assertBoundedStream(memberRepository.streamAllMemberCustom());
+    }
+
+
+    @Test
+    void streamAll() {
+        assertBoundedStream(memberJpaRepository.streamAll());
+    }
+
+
+    @Test
+    void streamAllTeams() {
+        AtomicLong managed = new AtomicLong();
+
+        try(Stream<Team> stream = teamJpaRepository.streamAll()) {
+            stream.forEach(team -> {
+                if(em.contains(team)) {
+                    managed.incrementAndGet();
+                }
+            });
+        }
+
+        assertThat(managed.get()).isEqualTo(TEAMS);
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero();
+    }
+
+
+    private void assertBoundedStream(Stream<Member> stream) {
+        Session session = em.unwrap(Session.class);
+        AtomicLong count = new AtomicLong();
+        AtomicLong managed = new AtomicLong();
+        AtomicLong teamNames = new AtomicLong();
+        AtomicLong maxManaged = new AtomicLong();
+        long heapBefore = usedHeap();
+
+        try(stream) {
+            stream.forEach(member -> {
+                count.incrementAndGet();
+                // 소비하는 동안에는 영속 상태라 지연 로딩이 된다
+                if(em.contains(member)) {
+                    managed.incrementAndGet();
+                }
+                if(member.getTeam() != null && member.getTeam().getName() != null) {
+                    teamNames.incrementAndGet();
+                }
+                maxManaged.accumulateAndGet(session.getStatistics().getEntityCount(), Math::max);
+            });
+        }
+
+        long heapAfter = usedHeap();
+        System.out.printf("streamed %,d rows, used heap %,d MB -> %,d MB%n", count.get(),
+                heapBefore / 1024 / 1024, heapAfter / 1024 / 1024);
+
+        assertThat(count.get()).isEqualTo(COUNT);
+        assertThat(managed.get()).isEqualTo(COUNT);
+        assertThat(teamNames.get()).isEqualTo(COUNT / 2);
+        // 현재 회원 + 지연 로딩한 팀
+        assertThat(maxManaged.get()).isLessThanOrEqualTo(1 + TEAMS);
+        assertThat(session.getStatistics().getEntityCount()).isLessThanOrEqualTo(TEAMS);
+        // 회원 수에 비례해서 남는 것이 없다 (1,000,000 건이면 회원 엔티티만 수백 MB)
+        assertThat(heapAfter - heapBefore).isLessThan(64L * 1024 * 1024);
+    }
+
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
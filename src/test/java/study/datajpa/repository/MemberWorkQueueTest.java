@@ -0,0 +1,213 @@
+package study.datajpa.repository;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+
+/**
+ * 락은 트랜잭션이 끝나야 풀리므로 테스트 트랜잭션 없이 스레드마다 트랜잭션을 연다. 테스트마다 스키마를 새로 만든다.
+ */
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class MemberWorkQueueTest {
+
+    private static final int PENDING = 1;
+    private static final int DONE = 2;
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+
+    @Test
+    void skipLockedClaimsDisjointBatches() throws Exception {
+        saveMembers(10);
+        CountDownLatch claimed = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            Future<List<Long>> first = executor.submit(() -> inTransaction(() -> {
+                List<Long> ids = ids(memberRepository.claimByAge(PENDING, 5, LockWait.SKIP_LOCKED));
+                claimed.countDown();
+                await(release);
+                return ids;
+            }));
+            assertThat(claimed.await(10, TimeUnit.SECONDS)).isTrue();
+
+            List<Long> second = inTransaction(() -> ids(memberRepository.claimByAge(PENDING, 5, LockWait.SKIP_LOCKED)));
+            release.countDown();
+
+            assertThat(first.get()).hasSize(5).isSorted();
+            assertThat(second).hasSize(5).isSorted().doesNotContainAnyElementsOf(first.get());
+            // pk 순 : 첫 워커가 앞의 5 명, 다음 워커가 그 다음 5 명
+            assertThat(second.get(0)).isGreaterThan(first.get().get(4));
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    void noWaitAndTimeoutFailFast() throws Exception {
+        saveMembers(1);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+
+        try {
+            executor.submit(() -> inTransaction(() -> {
+                memberRepository.findMemberLockByUsername("member0", LockWait.NOWAIT);
+                locked.countDown();
+                await(release);
+                return null;
+            }));
+            assertThat(locked.await(10, TimeUnit.SECONDS)).isTrue();
+
+            assertThatThrownBy(() -> inTransaction(
+                    () -> memberRepository.findMemberLockByUsername("member0", LockWait.NOWAIT)))
+                    .isInstanceOf(PessimisticLockingFailureException.class);
+            assertThatThrownBy(() -> inTransaction(() -> memberRepository.findMemberLockByUsername("member0",
+                    LockWait.timeout(Duration.ofMillis(200)))))
+                    .isInstanceOf(PessimisticLockingFailureException.class);
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+
+    @Test
+    void workersDrainWithoutDuplicates() throws Exception {
+        int members = 200;
+
+        saveMembers(members);
+
+        // 중복 없이 (배치가 겹치지 않고) 큐를 모두 비운다. 검증은 drain 안에서
+        drain(4, members);
+    }
+
+
+    /**
+     * 처리(대기) 시간이 대부분이라 워커를 늘린 만큼 빨라진다. 벽시계 비교라 ./gradlew loadTest 에서만 돈다.
+     */
+    @Test
+    @Tag("load")
+    void workersScaleWithSkipLocked() throws Exception {
+        int members = 600;
+
+        saveMembers(members);
+        long oneWorker = drain(1, members);
+
+        saveMembers(members); // 처리한 회원은 DONE 이라 큐에 다시 들어오지 않는다
+        long fourWorkers = drain(4, members);
+
+        assertThat(fourWorkers).isLessThan(oneWorker * 3 / 4);
+    }
+
+
+    /**
+     * workers 개 스레드가 SKIP_LOCKED 로 20 명씩 가져가서 처리 표시(age = DONE)한다. 걸린 시간(ms)을 돌려준다.
+     */
+    private long drain(int workers, int expected) throws Exception {
+        Set<Long> processed = ConcurrentHashMap.newKeySet();
+        AtomicInteger duplicates = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        long start = System.nanoTime();
+
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for(int i = 0; i < workers; i++) {
+                futures.add(executor.submit(() -> {
+                    boolean more = true;
+                    while(more) {
+                        more = inTransaction(() -> {
+                            List<Member> batch = memberRepository.claimByAge(PENDING, 20, LockWait.SKIP_LOCKED);
+                            for(Member member : batch) {
+                                if(!processed.add(member.getId())) {
+                                    duplicates.incrementAndGet();
+                                }
+                                member.setAge(DONE);
+                            }
+                            sleep(40); // 외부 호출 같은 처리 시간
+                            return !batch.isEmpty();
+                        });
+                    }
+                }));
+            }
+            for(Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertThat(duplicates).hasValue(0);
+        assertThat(processed).hasSize(expected);
+        assertThat(memberRepository.findByAge(PENDING, PageRequest.of(0, 1)).getTotalElements()).isZero();
+
+        return elapsed;
+    }
+
+
+    private void saveMembers(int count) {
+        List<Member> members = new ArrayList<>(count);
+        for(int i = 0; i < count; i++) {
+            members.add(new Member("member" + i, PENDING));
+        }
+        memberRepository.saveAll(members);
+    }
+
+
+    private <T> T inTransaction(Supplier<T> action) {
+        return new TransactionTemplate(transactionManager).execute(status -> action.get());
+    }
+
+
+    private static List<Long> ids(List<Member> members) {
+        return members.stream().map(Member::getId).toList();
+    }
+
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch(InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package study.datajpa.repository;
+
+import java.util.List;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+
+/**
+ * 2차 캐시는 커밋된 데이터 기준이라 테스트 트랜잭션 없이 TransactionTemplate 으로 트랜잭션을 나눈다.
+ */
+@SpringBootTest
+@ActiveProfiles("cache")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class SecondLevelCacheTest {
+
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TeamRepository teamRepository;
+    @Autowired
+    private EntityManager em;
+    @Autowired
+    private EntityManagerFactory emf;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate tx;
+    private Statistics statistics;
+    private Long teamId;
+
+
+    @BeforeEach
+    void setUp() {
+        tx = new TransactionTemplate(transactionManager);
+        statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        teamId = tx.execute(status -> {
+            Team team = teamRepository.save(new Team("teamA"));
+            memberRepository.save(new Member("member1", 10, team));
+            memberRepository.save(new Member("member2", 20, team));
+            return team.getId();
+        });
+
+        emf.getCache().evictAll();
+    }
+
+
+    @Test
+    void teamFindById() {
+        tx.executeWithoutResult(status -> teamRepository.findById(teamId).orElseThrow()); // miss -> 캐시 저장
+
+        statistics.clear();
+
+        tx.executeWithoutResult(
+                status -> assertThat(teamRepository.findById(teamId).orElseThrow().getName()).isEqualTo("teamA"));
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+
+        // 지연 로딩 team 도 캐시에서
+        tx.executeWithoutResult(status -> {
+            List<Member> members = memberRepository.findByUsername("member1");
+            statistics.clear();
+            assertThat(members.get(0).getTeam().getName()).isEqualTo("teamA");
+        });
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getSecondLevelCacheHitCount()).isEqualTo(1);
+    }
+
+
+    @Test
+    void findByUsernameQueryCache() {
+        tx.executeWithoutResult(status -> memberRepository.findByUsername("member1"));
+
+        statistics.clear();
+
+        for(int i = 0; i < 3; i++) {
+            tx.executeWithoutResult(status -> assertThat(memberRepository.findByUsername("member1")).hasSize(1));
+        }
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+        assertThat(statistics.getQueryCacheHitCount()).isEqualTo(3);
+    }
+
+
+    @Test
+    void bulkUpdateEvictsQueryCache() {
+        tx.executeWithoutResult(status -> memberRepository.findByUsername("member1"));
+
+        tx.executeWithoutResult(status -> memberRepository.bulkAgePlus(0));
+
+        statistics.clear();
+
+        tx.executeWithoutResult(status -> {
+            List<Member> members = memberRepository.findByUsername("member1");
+            assertThat(members.get(0).getAge()).isEqualTo(11);
+        });
+
+        assertThat(statistics.getQueryCacheHitCount()).isZero();
+        assertThat(statistics.getPrepareStatementCount()).isPositive();
+    }
+}
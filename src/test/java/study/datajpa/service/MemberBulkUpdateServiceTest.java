@@ -0,0 +1,141 @@
+package study.datajpa.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import jakarta.persistence.EntityManager;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.BulkJobCheckpoint;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.BulkJobCheckpointRepository;
+import study.datajpa.repository.MemberRepository;
+
+/**
+ * 청크마다 커밋하므로 테스트 트랜잭션 없이 돌린다. 테스트마다 컨텍스트(스키마)를 새로 만든다.
+ * throttle 은 동시 실행 테스트에서 두 실행이 겹치도록 둔다.
+ */
+@SpringBootTest(properties = {"datajpa.bulk-update.chunk-size=100", "datajpa.bulk-update.throttle=10ms"})
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class MemberBulkUpdateServiceTest {
+
+    private static final int MEMBERS = 1_050;
+
+    @Autowired
+    private MemberBulkUpdateService memberBulkUpdateService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private BulkJobCheckpointRepository checkpointRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private EntityManager em;
+
+
+    @BeforeEach
+    void seed() {
+        List<Member> members = new ArrayList<>(MEMBERS);
+        for(int i = 0; i < MEMBERS; i++) {
+            members.add(new Member("member" + i, i % 2 == 0 ? 10 : 20));
+        }
+        memberRepository.saveAll(members);
+    }
+
+
+    @Test
+    void bulkAgePlus() {
+        BulkUpdateResult result = memberBulkUpdateService.bulkAgePlus(20);
+
+        assertThat(result.getRows()).isEqualTo(MEMBERS / 2);
+        assertThat(result.getChunks()).isEqualTo(11);
+        assertThat(result.getPercent()).isEqualTo(100);
+        assertThat(result.isResumed()).isFalse();
+        assertThat(countByAge(21)).isEqualTo(MEMBERS / 2);
+        assertThat(countByAge(10)).isEqualTo(MEMBERS / 2);
+        assertThat(checkpointRepository.count()).isZero();
+    }
+
+
+    @Test
+    void resumeFromCheckpoint() {
+        long minId = memberRepository.findMinId();
+        long maxId = memberRepository.findMaxId();
+        long lastId = minId + 499;
+
+        // 앞의 500건까지 처리하고 죽은 상태
+        memberRepository.bulkAgePlusInRange(20, minId - 1, lastId);
+        BulkJobCheckpoint checkpoint = new BulkJobCheckpoint("member-age-plus:20", lastId, maxId);
+        checkpoint.advance(lastId, 250);
+        checkpointRepository.save(checkpoint);
+
+        BulkUpdateResult result = memberBulkUpdateService.bulkAgePlus(20);
+
+        assertThat(result.isResumed()).isTrue();
+        assertThat(result.getChunks()).isEqualTo(6);
+        assertThat(result.getRows()).isEqualTo(MEMBERS / 2);
+        // 재개해도 두 번 올라간 회원이 없다
+        assertThat(countByAge(21)).isEqualTo(MEMBERS / 2);
+        assertThat(countByAge(22)).isZero();
+    }
+
+
+    @Test
+    void concurrentRunsUpdateEachMemberOnce() throws Exception {
+        CountDownLatch ready = new CountDownLatch(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            List<CompletableFuture<BulkUpdateResult>> runs = new ArrayList<>();
+            for(int i = 0; i < 2; i++) {
+                runs.add(CompletableFuture.supplyAsync(() -> {
+                    ready.countDown();
+                    try {
+                        ready.await();
+                    } catch(InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    return memberBulkUpdateService.bulkAgePlus(20);
+                }, executor));
+            }
+
+            for(CompletableFuture<BulkUpdateResult> run : runs) {
+                assertThat(run.get().getPercent()).isEqualTo(100);
+            }
+        } finally {
+            executor.shutdown();
+        }
+
+        assertThat(countByAge(21)).isEqualTo(MEMBERS / 2);
+        assertThat(countByAge(22)).isZero();
+        assertThat(checkpointRepository.count()).isZero();
+    }
+
+
+    @Test
+    void clearCallerPersistenceContext() {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Member member = memberRepository.findByUsername("member1").get(0);
+
+            memberBulkUpdateService.bulkAgePlus(20);
+
+            assertThat(em.contains(member)).isFalse();
+            assertThat(memberRepository.findById(member.getId()).orElseThrow().getAge()).isEqualTo(21);
+        });
+    }
+
+
+    private long countByAge(int age) {
+        return memberRepository.findByAge(age, PageRequest.of(0, 1)).getTotalElements();
+    }
+}
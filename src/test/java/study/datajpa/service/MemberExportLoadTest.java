@@ -0,0 +1,108 @@
+package study.datajpa.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import jakarta.persistence.EntityManager;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.monitoring.SqlCapture;
+
+/**
+ * 전체 회원 export 가 건수와 상관없이 일정한 메모리로 쿼리 한 번에 끝나는지 확인. 건수는 -Dexport.test.count 로 바꿀 수 있다.
+ * (기본 10,000, ./gradlew loadTest 에서는 10,000,000)
+ */
+@Tag("load")
+@SpringBootTest
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class MemberExportLoadTest {
+
+    private static final int COUNT = Integer.getInteger("export.test.count", 10_000);
+    private static final int TEAMS = 3;
+    private static final long MAX_HEAP_GROWTH = 64L * 1024 * 1024;
+    private static final long HEAP_CHECK_BYTES = 32L * 1024 * 1024;
+
+    @Autowired
+    private MemberExportService memberExportService;
+    @Autowired
+    private SqlCapture sqlCapture;
+    @Autowired
+    private EntityManager em;
+
+
+    @BeforeEach
+    void setUp() {
+        // 엔티티를 거치지 않고 DB 에서 바로 생성. 짝수 회원만 팀이 있다
+        em.createNativeQuery("insert into team (team_id, name, version) "
+                + "select x, concat('team', x), 0 from system_range(1, :teams)")
+                .setParameter("teams", TEAMS).executeUpdate();
+        em.createNativeQuery("insert into member (member_id, username, age, version, teal_id) "
+                + "select x, concat('member', x), mod(x, 100), 0, case when mod(x, 2) = 0 then mod(x, :teams) + 1 end "
+                + "from system_range(1, :count)")
+                .setParameter("teams", TEAMS).setParameter("count", COUNT).executeUpdate();
+    }
+
+
+    @Test
+    void exportInConstantMemory() throws IOException {
+        HeapWatchingOutputStream out = new HeapWatchingOutputStream();
+        sqlCapture.reset();
+
+        long rows = memberExportService.export(ExportFormat.CSV, false, out);
+
+        assertThat(rows).isEqualTo(COUNT);
+        assertThat(out.bytes).isGreaterThan(COUNT * 10L);
+        // 결과를 모아 두지 않는다 : GC 후 남는 힙이 건수와 상관없이 일정
+        assertThat(out.maxHeapGrowth).isLessThan(MAX_HEAP_GROWTH);
+        // 한 번의 조회 (커서)
+        assertThat(sqlCapture.top(Integer.MAX_VALUE)).filteredOn(summary -> summary.sql().contains("member"))
+                .singleElement().satisfies(summary -> assertThat(summary.count()).isEqualTo(1));
+    }
+
+
+    /**
+     * 받은 내용은 버리고 크기만 센다. HEAP_CHECK_BYTES 마다 GC 후 사용 중인 힙이 처음보다 얼마나 늘었는지 잰다.
+     */
+    private static final class HeapWatchingOutputStream extends OutputStream {
+
+        private final long baseline = usedHeapAfterGc();
+        private long bytes;
+        private long nextCheck = HEAP_CHECK_BYTES;
+        private long maxHeapGrowth;
+
+
+        @Override
+        public void write(int b) {
+            count(1);
+        }
+
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count(len);
+        }
+
+
+        private void count(int len) {
+            bytes += len;
+            if(bytes >= nextCheck) {
+                nextCheck += HEAP_CHECK_BYTES;
+                maxHeapGrowth = Math.max(maxHeapGrowth, usedHeapAfterGc() - baseline);
+            }
+        }
+
+
+        private static long usedHeapAfterGc() {
+            Runtime runtime = Runtime.getRuntime();
+            System.gc();
+
+            return runtime.totalMemory() - runtime.freeMemory();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package study.datajpa.service;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.entity.Team;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+
+@SpringBootTest(properties = "datajpa.export.flush-rows=2")
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class MemberExportServiceTest {
+
+    @Autowired
+    private MemberExportService memberExportService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TeamRepository teamRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private Member member1;
+
+
+    @BeforeEach
+    void setUp() {
+        Team team = teamRepository.save(new Team("teamA"));
+        member1 = memberRepository.save(new Member("member1", 10, team));
+        memberRepository.save(new Member("kim, \"jr\"", 20, team));
+        memberRepository.save(new Member("member3", 30)); // 팀 없는 회원도 나간다
+    }
+
+
+    @Test
+    void exportNdjson() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long rows = memberExportService.export(ExportFormat.NDJSON, false, out);
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        JsonNode first = objectMapper.readTree(lines.get(0));
+
+        assertThat(rows).isEqualTo(3);
+        assertThat(lines).hasSize(3);
+        assertThat(first.get("id").asLong()).isEqualTo(member1.getId());
+        assertThat(first.get("username").asText()).isEqualTo("member1");
+        assertThat(first.get("age").asInt()).isEqualTo(10);
+        assertThat(first.get("team").asText()).isEqualTo("teamA");
+        assertThat(objectMapper.readTree(lines.get(1)).get("username").asText()).isEqualTo("kim, \"jr\"");
+        assertThat(objectMapper.readTree(lines.get(2)).get("team").isNull()).isTrue();
+    }
+
+
+    @Test
+    void exportCsv() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        memberExportService.export(ExportFormat.CSV, false, out);
+
+        assertThat(out.toString(StandardCharsets.UTF_8).lines().toList()).containsExactly(
+                "id,username,age,team",
+                member1.getId() + ",member1,10,teamA",
+                (member1.getId() + 1) + ",\"kim, \"\"jr\"\"\",20,teamA",
+                (member1.getId() + 2) + ",member3,30,");
+    }
+
+
+    @Test
+    void gzipAndFlushInChunks() throws IOException {
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        int[] flushes = {0};
+
+        memberExportService.export(ExportFormat.NDJSON, false, plain);
+        memberExportService.export(ExportFormat.NDJSON, true, new FilterOutputStream(compressed) {
+            @Override
+            public void flush() throws IOException {
+                flushes[0]++;
+                super.flush();
+            }
+        });
+
+        // 2 건마다 + 마지막
+        assertThat(flushes[0]).isEqualTo(2);
+        try(GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed.toByteArray()))) {
+            assertThat(in.readAllBytes()).isEqualTo(plain.toByteArray());
+        }
+    }
+
+
+    @Test
+    void stopsWhenClientGoesAway() {
+        OutputStream disconnected = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                throw new IOException("Broken pipe");
+            }
+        };
+
+        assertThatThrownBy(() -> memberExportService.export(ExportFormat.CSV, false, disconnected))
+                .isInstanceOf(IOException.class).hasMessage("Broken pipe");
+    }
+}
@@ -0,0 +1,138 @@
+package study.datajpa.service;
+
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.List;
+import jakarta.persistence.EntityManager;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.hibernate.Session;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.annotation.Transactional;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+import study.datajpa.repository.TeamRepository;
+
+
+@SpringBootTest(properties = "datajpa.import.chunk-size=100")
+@Transactional
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class MemberImportServiceTest {
+
+    @Autowired
+    private MemberImportService memberImportService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private TeamRepository teamRepository;
+    @Autowired
+    private EntityManager em;
+
+
+    @Test
+    void importCsv() {
+        int rows = 1_050;
+
+        ImportResult result = memberImportService.importCsv(csv(rows));
+
+        assertThat(result.getRows()).isEqualTo(rows);
+        assertThat(result.getChunks()).isEqualTo(11);
+        assertThat(em.unwrap(Session.class).getStatistics().getEntityCount()).isZero(); // 청크마다 clear
+        assertThat(memberRepository.count()).isEqualTo(rows);
+        assertThat(teamRepository.count()).isEqualTo(3);
+
+        System.out.println(result + " rows/s=" + result.getRowsPerSecond());
+    }
+
+
+    @Test
+    void importNdjson() {
+        String ndjson = """
+                {"username": "member1", "age": 10, "team": "teamA"}
+                {"username": "member2", "age": 20, "team": "teamA"}
+
+                {"username": "member3", "age": 30}
+                """;
+
+        ImportResult result = memberImportService.importNdjson(new StringReader(ndjson));
+
+        assertThat(result.getRows()).isEqualTo(3);
+
+        List<Member> members = memberRepository.findMemberFetchJoin();
+
+        assertThat(members).extracting(member -> member.getTeam() == null ? null : member.getTeam().getName())
+                .containsExactlyInAnyOrder("teamA", "teamA", null);
+    }
+
+
+    @Test
+    void rejectMalformedCsv() {
+        assertThatThrownBy(() -> memberImportService.importCsv(new StringReader("username,team\nmember1,teamA\n")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageContaining("age");
+
+        // 헤더가 1 번째 줄
+        String shortRow = "username,age,team\nmember1,10\nmember2\n";
+        assertThatThrownBy(() -> memberImportService.importCsv(new StringReader(shortRow)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("3 번째 줄");
+        assertThatThrownBy(() -> memberImportService.importCsv(new StringReader("username,age\nmember1,ten\n")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("2 번째 줄");
+    }
+
+
+    @Test
+    void rejectMalformedNdjson() {
+        String noUsername = "{\"username\": \"member1\", \"age\": 10}\n{\"age\": 20}\n";
+        assertThatThrownBy(() -> memberImportService.importNdjson(new StringReader(noUsername)))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("2 번째 줄");
+        assertThatThrownBy(() -> memberImportService.importNdjson(new StringReader("{\"username\": \"member1\"}\n")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("1 번째 줄");
+        assertThatThrownBy(
+                () -> memberImportService.importNdjson(new StringReader("{\"username\": \"member1\", \"age\": \"ten\"}\n")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("1 번째 줄");
+        assertThatThrownBy(
+                () -> memberImportService.importNdjson(new StringReader("{\"username\": \"member1\", \"age\": 10.5}\n")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("1 번째 줄");
+        assertThatThrownBy(() -> memberImportService.importNdjson(new StringReader("[1, 2]\n")))
+                .isInstanceOf(IllegalArgumentException.class).hasMessageStartingWith("1 번째 줄");
+    }
+
+
+    /**
+     * 전체 내용을 메모리에 만들지 않고 한 줄씩 생성하는 Reader.
+     */
+    private static Reader csv(int rows) {
+        return new Reader() {
+
+            private int row = -1;
+            private String line = "";
+            private int pos;
+
+
+            @Override
+            public int read(char[] buf, int off, int len) {
+                if(pos == line.length()) {
+                    if(row == rows) {
+                        return -1;
+                    }
+                    line = row < 0 ? "username,age,team\n" : "member" + row + "," + row % 100 + ",team" + row % 3 + "\n";
+                    row++;
+                    pos = 0;
+                }
+
+                int n = Math.min(len, line.length() - pos);
+                line.getChars(pos, pos + n, buf, off);
+                pos += n;
+
+                return n;
+            }
+
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+}
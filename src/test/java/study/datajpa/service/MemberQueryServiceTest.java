@@ -0,0 +1,53 @@
+package study.datajpa.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import static org.assertj.core.api.Assertions.assertThat;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@DirtiesContext(classMode = DirtiesContext.ClassMode.BEFORE_EACH_TEST_METHOD)
+class MemberQueryServiceTest {
+
+    @Autowired
+    private MemberQueryService memberQueryService;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private EntityManagerFactory emf;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+
+    @Test
+    void findUsernameCached() {
+        Member member = memberRepository.save(new Member("member1", 10));
+        Statistics statistics = emf.unwrap(SessionFactory.class).getStatistics();
+
+        assertThat(memberQueryService.findUsername(member.getId())).contains("member1");
+
+        statistics.clear();
+
+        assertThat(memberQueryService.findUsername(member.getId())).contains("member1");
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+
+        // 변경 감지로 수정해도 캐시가 지워진다
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> memberRepository.findById(member.getId()).orElseThrow().setUsername("member2"));
+
+        assertThat(memberQueryService.findUsername(member.getId())).contains("member2");
+
+        memberRepository.deleteById(member.getId());
+
+        assertThat(memberQueryService.findUsername(member.getId())).isEmpty();
+    }
+}
@@ -0,0 +1,117 @@
+package study.datajpa.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import study.datajpa.entity.Member;
+import study.datajpa.repository.MemberRepository;
+
+/**
+ * 재시도마다 새 트랜잭션이 커밋되어야 하므로 테스트 트랜잭션 없이 돌린다.
+ * 충돌은 작업 도중 다른 트랜잭션(REQUIRES_NEW)이 같은 회원을 고쳐서 만든다.
+ */
+@SpringBootTest(properties = {"datajpa.optimistic-retry.max-attempts=3", "datajpa.optimistic-retry.initial-backoff=1ms"})
+@DirtiesContext
+class OptimisticRetryExecutorTest {
+
+    @Autowired
+    private OptimisticRetryExecutor optimisticRetryExecutor;
+    @Autowired
+    private MemberRepository memberRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate concurrentTx;
+    private Long memberId;
+
+
+    @BeforeEach
+    void setUp() {
+        concurrentTx = new TransactionTemplate(transactionManager);
+        concurrentTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        memberId = memberRepository.save(new Member("optimistic", 10)).getId();
+    }
+
+
+    @Test
+    void retryOnConflict() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        optimisticRetryExecutor.run(() -> {
+            Member member = memberRepository.findById(memberId).orElseThrow();
+
+            if(attempts.incrementAndGet() == 1) {
+                agePlusConcurrently();
+            }
+            member.setAge(member.getAge() + 1);
+        });
+
+        Member member = memberRepository.findById(memberId).orElseThrow();
+
+        assertThat(attempts).hasValue(2);
+        // 동시에 올린 1 과 재시도에서 올린 1 이 모두 남는다
+        assertThat(member.getAge()).isEqualTo(12);
+        assertThat(member.getVersion()).isEqualTo(2);
+    }
+
+
+    @Test
+    void giveUpAfterMaxAttempts() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> optimisticRetryExecutor.run(() -> {
+            Member member = memberRepository.findById(memberId).orElseThrow();
+            attempts.incrementAndGet();
+            agePlusConcurrently();
+            member.setAge(0);
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+
+        assertThat(attempts).hasValue(3);
+        assertThat(memberRepository.findById(memberId).orElseThrow().getAge()).isEqualTo(13);
+    }
+
+
+    @Test
+    void optimisticReadDetectsConcurrentChange() {
+        // 읽기만 했어도 OPTIMISTIC 락이면 커밋 때 version 을 확인한다
+        assertThatThrownBy(() -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            memberRepository.findOptimisticById(memberId).orElseThrow();
+            agePlusConcurrently();
+        })).isInstanceOf(OptimisticLockingFailureException.class);
+    }
+
+
+    @Test
+    void forceIncrementWithoutChange() {
+        // 바꾸지 않아도 커밋 때 version 이 올라간다
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> memberRepository.findMemberForceIncrementByUsername("optimistic"));
+
+        assertThat(memberRepository.findById(memberId).orElseThrow().getVersion()).isEqualTo(1);
+    }
+
+
+    @Test
+    void bulkUpdateIncrementsVersion() {
+        memberRepository.bulkAgePlus(10);
+
+        assertThat(memberRepository.findById(memberId).orElseThrow().getVersion()).isEqualTo(1);
+    }
+
+
+    private void agePlusConcurrently() {
+        concurrentTx.executeWithoutResult(status -> {
+            Member member = memberRepository.findById(memberId).orElseThrow();
+            member.setAge(member.getAge() + 1);
+        });
+    }
+}